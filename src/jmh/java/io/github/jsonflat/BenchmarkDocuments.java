@@ -0,0 +1,70 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Random;
+
+/**
+ * Generator of benchmark documents of configurable shape.
+ * Every object has width primitive fields, a nested object "obj" and an array "items" of fanout objects,
+ * objects are nested till depth. Nested arrays are exploded into cartesian product by default auto schema,
+ * so number of rows grows fast with depth and fanout: 128 rows for depth 3 and fanout 2.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class BenchmarkDocuments {
+
+	/**
+	 * @param width  number of primitive fields of every object
+	 * @param depth  nesting level of objects
+	 * @param fanout number of elements of arrays
+	 * @param seed   seed of values, documents with different seeds have equal shape
+	 * @return json document
+	 */
+	public static ObjectNode generate(int width, int depth, int fanout, long seed) {
+		return generate(width, depth, fanout, new Random(seed));
+	}
+
+	private static ObjectNode generate(int width, int depth, int fanout, Random random) {
+		ObjectNode node = JsonNodeFactory.instance.objectNode();
+		for (int i = 0; i < width; i++) {
+			String name = "field" + i;
+			switch (i % 4) {
+				case 0:
+					node.put(name, random.nextInt(100000));
+					break;
+				case 1:
+					node.put(name, "value \"" + random.nextInt(1000) + "\"");
+					break;
+				case 2:
+					node.put(name, random.nextDouble());
+					break;
+				default:
+					node.put(name, random.nextBoolean());
+			}
+		}
+		if (depth > 0) {
+			node.set("obj", generate(width, depth - 1, fanout, random));
+			ArrayNode items = node.putArray("items");
+			for (int i = 0; i < fanout; i++) {
+				items.add(generate(width, depth - 1, fanout, random));
+			}
+		}
+		return node;
+	}
+}
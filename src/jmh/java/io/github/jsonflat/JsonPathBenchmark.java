@@ -0,0 +1,73 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.JsonPath;
+import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.SimpleJsonPath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluation of column paths: JsonPath by string (as FlatTransformer.eval did before execution plans),
+ * precompiled JsonPath and native {@link SimpleJsonPath}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPathBenchmark {
+	static final String DOCUMENT = "{\"store\":{\"book\":[" +
+			"{\"category\":\"reference\",\"author\":\"Nigel Rees\",\"title\":\"Sayings of the Century\",\"price\":8.95}," +
+			"{\"category\":\"fiction\",\"author\":\"Evelyn Waugh\",\"title\":\"Sword of Honour\",\"price\":12.99}," +
+			"{\"category\":\"fiction\",\"author\":\"Herman Melville\",\"title\":\"Moby Dick\",\"isbn\":\"0-553-21311-3\",\"price\":8.99}," +
+			"{\"category\":\"fiction\",\"author\":\"J. R. R. Tolkien\",\"title\":\"The Lord of the Rings\",\"isbn\":\"0-395-19395-8\",\"price\":22.99}" +
+			"],\"bicycle\":{\"color\":\"red\",\"price\":19.95}},\"expensive\":10}";
+
+	@Param({"expensive", "store.bicycle.color", "store.book[*]", "store.book[*].title"})
+	public String path;
+
+	private JsonNode document;
+	private JsonPath jsonPath;
+	private SimpleJsonPath simpleJsonPath;
+
+	@Setup
+	public void setup() throws IOException {
+		document = Transformer.MAPPER.readTree(DOCUMENT); //also initializes JsonPath defaults
+		jsonPath = JsonPath.compile(path);
+		simpleJsonPath = SimpleJsonPath.compile(path);
+	}
+
+	@Benchmark
+	public Object jsonPathByString() {
+		return JsonPath.read(document, path);
+	}
+
+	@Benchmark
+	public Object jsonPathCompiled() {
+		return jsonPath.read(document, JsonUtils.JSON_PATH_CONFIGURATION);
+	}
+
+	@Benchmark
+	public Object simpleJsonPath() {
+		return simpleJsonPath.read(document);
+	}
+}
@@ -0,0 +1,100 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Automatic schema generation and schema merge for generated documents.
+ * Merge of a known shape only visits existing columns, merge of a new shape appends all columns to an empty schema.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaBenchmark {
+	@Param({"4", "32"})
+	public int width;
+	@Param({"1", "3"})
+	public int depth;
+	@Param({"1", "2"})
+	public int fanout;
+
+	private final AutoSchemaFactory factory = AutoSchemaFactory.builder().build();
+	private JsonNode document;
+	private JsonNode knownDocument; //the same shape with other values
+
+	@Setup
+	public void setup() {
+		document = BenchmarkDocuments.generate(width, depth, fanout, 1);
+		knownDocument = BenchmarkDocuments.generate(width, depth, fanout, 2);
+	}
+
+	@Benchmark
+	public Schema generate() {
+		return factory.generate(document);
+	}
+
+	@Benchmark
+	public Schema mergeKnown(KnownShape shape) {
+		shape.target.merge(shape.schema);
+		return shape.target;
+	}
+
+	@Benchmark
+	public Schema mergeNew(NewShape shape) {
+		shape.target.merge(shape.schema);
+		return shape.target;
+	}
+
+	/**
+	 * Merge of known shape must not change target, but target is created for every invocation
+	 * so that an unexpected change can't make later invocations cheaper
+	 */
+	@State(Scope.Thread)
+	public static class KnownShape {
+		Schema target;
+		Schema schema;
+
+		@Setup(Level.Invocation)
+		public void setup(SchemaBenchmark benchmark) {
+			target = benchmark.factory.generate(benchmark.document);
+			schema = benchmark.factory.generate(benchmark.knownDocument);
+		}
+	}
+
+	/**
+	 * Merge appends columns of merged schema, so both schemas are created for every invocation
+	 */
+	@State(Scope.Thread)
+	public static class NewShape {
+		Schema target;
+		Schema schema;
+
+		@Setup(Level.Invocation)
+		public void setup(SchemaBenchmark benchmark) {
+			target = new Schema();
+			schema = benchmark.factory.generate(benchmark.document);
+		}
+	}
+}
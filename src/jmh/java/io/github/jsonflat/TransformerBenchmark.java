@@ -0,0 +1,67 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transformation of generated documents by automatically generated schema:
+ * from json text to json lines by {@link Transformer#transform(String)} and from parsed document by {@link FlatTransformer}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerBenchmark {
+	@Param({"4", "32"})
+	public int width;
+	@Param({"1", "3"})
+	public int depth;
+	@Param({"1", "2"})
+	public int fanout;
+
+	private String text;
+	private JsonNode document;
+	private Transformer transformer;
+	private FlatTransformer flatTransformer;
+
+	@Setup
+	public void setup() {
+		document = BenchmarkDocuments.generate(width, depth, fanout, 1);
+		text = document.toString();
+		Schema schema = AutoSchemaFactory.builder().build().generate(document);
+		transformer = new Transformer(schema);
+		flatTransformer = new FlatTransformer(schema.getColumns());
+	}
+
+	@Benchmark
+	public List<String> transformText() throws Exception {
+		return transformer.transform(text);
+	}
+
+	@Benchmark
+	public List<JsonNode> flatTransform() {
+		return flatTransformer.transform(document);
+	}
+}
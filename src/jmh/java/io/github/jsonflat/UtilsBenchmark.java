@@ -0,0 +1,82 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column name matching by wildcard pattern and csv formatting of flat rows of generated documents.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+	@Param({"4", "32"})
+	public int width;
+	@Param({"1", "3"})
+	public int depth;
+	@Param({"1", "2"})
+	public int fanout;
+
+	private List<String> names;
+	private List<JsonNode> rows;
+
+	@Setup
+	public void setup() {
+		JsonNode document = BenchmarkDocuments.generate(width, depth, fanout, 1);
+		Schema schema = AutoSchemaFactory.builder().build().generate(document);
+		names = schema.getResultNames();
+		rows = new FlatTransformer(schema.getColumns()).transform(document);
+	}
+
+	@Benchmark
+	public int match(Pattern pattern) {
+		int count = 0;
+		for (String name : names) {
+			if (StringUtils.match(pattern.pattern, name)) count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int writeCsvValue() {
+		int length = 0;
+		for (JsonNode row : rows) {
+			length += JsonUtils.writeCsvValue(names, row, Schema.DEFAULT_DELIMITER).length();
+		}
+		return length;
+	}
+
+	/**
+	 * Patterns are parameters of matching only, so csv formatting is not repeated for every pattern
+	 */
+	@State(Scope.Benchmark)
+	public static class Pattern {
+		@Param({"*field1*", "obj*items*field?"})
+		public String pattern;
+	}
+}
@@ -1,23 +1,40 @@
 package io.github.jsonflat;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.AutoSchemaMerger;
 import io.github.jsonflat.schema.JsonSchemaFactory;
 import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.utils.GzipInputStream;
+import io.github.jsonflat.utils.InputLine;
+import io.github.jsonflat.utils.InputPaths;
 import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.LogPrefix;
+import io.github.jsonflat.utils.FileLines;
+import io.github.jsonflat.utils.ParallelGzipOutputStream;
+import io.github.jsonflat.utils.ParallelPipeline;
 import io.github.jsonflat.utils.StringUtils;
 import com.jayway.jsonpath.JsonPath;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
@@ -38,11 +55,11 @@ import java.util.stream.Stream;
  */
 public class App {
 	private static final String CSV_DELIMITER = ";";
+	private static final int LINES_PER_THREAD = 64;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
 
 	public static void main(String[] args) {
 		try {
-			final Stream<String> lines;
-			final PrintStream out;
 			final Config config = Config.build(args);
 			if (config.isHelp()) {
 				System.out.println("Utility for flatting JSON documents from the command line.\n" +
@@ -50,8 +67,9 @@ public class App {
 						"Supports log files on input. Every line will cut till first '[' or '{'.\n" +
 						"\n" +
 						"Arguments:\n" +
-						"-i\tPath to the input file. By default standard input.\n" +
+						"-i\tPath to the input file, directory or quoted glob pattern, e.g. \"logs/*.json\". Can be repeated, files are processed in order. By default standard input.\n" +
 						"-o\tPath to the output file. By default standard output.\n" +
+						"-od\tPath to the output directory, every input file is written to its own file named by input file. By default output is merged\n" +
 						"-f\tIf \"-s\" parameter is not set, defines JSONPath for filter JSON documents to processing. By default no filtering.\n" +
 						"-s\tPath to parsing scheme file. By default scheme will be autogenerated by input JSON documents.\n" +
 						"-d\tCustom delimiter for result columns naming. By default \"_\"\n" +
@@ -59,100 +77,572 @@ public class App {
 						"-n\tIf \"-s\" parameter is not set, generate scheme only by first line.\n" +
 						"-a\tExplode primitive arrays to rows. By default keeps arrays as is\n" +
 						"-c\tExplode arrays of objects to columns. By default explode to rows\n" +
+						"-t\tNumber of threads for parsing and transformation. With several input files and fixed schema (\"-s\" or \"-n\") files are processed concurrently. By default single thread\n" +
+						"-u\tWith \"-t\" parameter write result rows as soon as they are ready. By default keeps order of input lines\n" +
+						"-p\tComma separated names of columns for space separated fields of log prefix (text before JSON). By default prefix is skipped\n" +
 						"-csv\tWrite result in csv format. Delimiter ';'. Works fine only with -s or -n parameter. By default write in json\n" +
+						"-smile\tWrite result rows in binary Smile format with back-references to column names. By default write in json\n" +
+						"-cbor\tWrite result rows in binary CBOR format. By default write in json\n" +
+						"-gz\tCompress output with gzip by blocks on several threads (\"-t\" threads or all processors). Gzip input is always decompressed\n" +
+						"-maxRows\tMax number of result rows of one JSON document. By default not limited\n" +
+						"-maxBytes\tMax estimated size in bytes of result rows of one JSON document. By default not limited\n" +
+						"-overLimit\tAction for documents over \"-maxRows\" or \"-maxBytes\": truncate, skip or reject. By default truncate\n" +
+						"-rejects\tPath to the file for JSON of rejected documents, sets \"-overLimit\" to reject by default\n" +
+						"-stats\tPrint statistics of parsing, transformation and writing to standard error at exit\n" +
 						"-h\tPrint this help\n" +
 						"\n" +
 						"Any other parameters define result JSON column set.");
 				return;
 			}
-			if (config.getInputPath() != null) {
-				lines = Files.lines(Paths.get(config.getInputPath()));
-			} else {
-				lines = new BufferedReader(new InputStreamReader(System.in, config.encoding)).lines();
+			SchemaHolder holder = new SchemaHolder();
+			if (config.rejectsPath != null) {
+				holder.rejects = new PrintStream(new FileOutputStream(config.rejectsPath), false, "UTF-8");
 			}
-			if (config.getOutputPath() != null) {
-				out = new PrintStream(config.getOutputPath());
-			} else {
-				out = System.out;
+			TransformStats stats = null;
+			if (config.stats) {
+				stats = new TransformStats();
+				holder.metrics = stats;
 			}
-			SchemaHolder holder = new SchemaHolder();
-			lines
-				.map(StringUtils::preprocessLog)
-				.forEachOrdered(line -> {
-				try {
-					ObjectNode json = (ObjectNode) Transformer.MAPPER.readTree(line);
-					if (holder.transformer == null) {
-						Schema schema;
-						if (config.getSchemePath() != null) {
-							String schemaString = new String(Files.readAllBytes(Paths.get(config.getSchemePath())));
-							schema = JsonSchemaFactory.builder().build().generate(schemaString);
+			try {
+				List<Path> inputs = InputPaths.resolve(config.inputs);
+				if (config.outputDir != null) {
+					transformFiles(inputs, config, holder, null);
+				} else {
+					PrintStream out = config.getOutputPath() != null ? new PrintStream(config.getOutputPath()) : System.out;
+					try (Output output = new Output(out, config, true, config.gzip ? compressionThreads(config) : 0)) {
+						if (inputs.size() > 1) {
+							transformFiles(inputs, config, holder, output);
 						} else {
-							schema = AutoSchemaFactory.builder()
-									.columnStringFilters(config.getColumns())
-									.filterRowsPath(config.getJsonFilter())
-									.delimiter(config.delimiter)
-									.primitiveArraysGroup(
-											config.explodeSimpleArrays ?
-													Schema.GroupPolicy.NO_GROUP :
-													config.csv ?
-															Schema.GroupPolicy.CONCAT :
-															Schema.GroupPolicy.ARRAY
-									)
-									.complexArraysGroup(
-											config.explodeComplexArraysToColumns ?
-													Schema.GroupPolicy.COLUMNS : Schema.GroupPolicy.NO_GROUP
-									)
-									.build()
-									.generate(json);
+							transform(lines(inputs.isEmpty() ? null : inputs.get(0), config), config, holder, output, config.threads);
 						}
-						if (config.csv) {
-							holder.columnNames = schema.getResultNames();
-							out.println(JsonUtils.writeCsvHeader(holder.columnNames, CSV_DELIMITER));
+					}
+				}
+			} finally {
+				if (holder.rejects != null) holder.rejects.close();
+				if (stats != null) {
+					System.err.print(stats.summary());
+					if (holder.transformer != null) printConverterCaches(holder.transformer.getSchema().getColumns(), "");
+				}
+			}
+		} catch (Exception e) {
+			System.err.println("Error: " + e.getLocalizedMessage());
+			e.printStackTrace();
+		}
+	}
+
+
+	private static void printConverterCaches(Collection<Schema.Column> columns, String parent) {
+		for (Schema.Column column : columns) {
+			String name = column.getFullname(parent);
+			if (column.getCachedConverter() != null) System.err.println(name + ": " + column.getCachedConverter());
+			printConverterCaches(column.getColumns(), name);
+		}
+	}
+
+	/**
+	 * Gzip input is found by magic bytes and decompressed, its lines are read from decompressed stream
+	 * @return lines of file or standard input with skipped log prefix
+	 */
+	private static Stream<InputLine> lines(Path input, Config config) throws IOException {
+		Charset charset = Charset.forName(config.encoding);
+		Stream<InputLine> lines;
+		if (input == null) {
+			InputStream in = new BufferedInputStream(System.in);
+			if (GzipInputStream.isGzip(in)) in = new GzipInputStream(in);
+			lines = new BufferedReader(new InputStreamReader(in, charset)).lines().map(InputLine::of);
+		} else if (GzipInputStream.isGzip(input)) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new GzipInputStream(Files.newInputStream(input)), charset));
+			lines = reader.lines().map(InputLine::of).onClose(() -> {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} else if (StandardCharsets.UTF_8.equals(charset)) {
+			//lines are parsed from bytes of file
+			lines = FileLines.lines(input);
+		} else {
+			lines = Files.lines(input, charset).map(InputLine::of);
+		}
+		return lines.map(InputLine::skipLogPrefix);
+	}
+
+	/**
+	 * Transforms lines of one input to output
+	 * @param threads number of threads transforming lines, 0 to transform lines by the current thread
+	 */
+	private static void transform(Stream<InputLine> lines, Config config, SchemaHolder holder, Output output, int threads) throws Exception {
+		try (Stream<InputLine> input = lines) {
+			output.writeCsvHeader(holder);
+			if (threads > 0) {
+				transformParallel(input, threads, config, holder, output);
+			} else {
+				input.forEachOrdered(line -> transformLine(line, config, holder, output));
+			}
+		}
+	}
+
+	/**
+	 * Input files are processed one by one, lines of every file are transformed by "-t" threads.
+	 * With fixed schema files are processed concurrently sharing the transformer, which is created before
+	 * by the schema file or by the first document. "-t" threads are divided between concurrent files.
+	 * Merged output keeps the order of files: concurrently processed files are written to temporary files
+	 * next to the output which are copied to output.
+	 * @param merged output of all files, null if every file is written to its own file in output directory
+	 */
+	private static void transformFiles(List<Path> inputs, Config config, SchemaHolder holder, Output merged) throws Exception {
+		if (merged == null) {
+			if (inputs.isEmpty()) throw new Exception("'-od' parameter needs input files");
+			Set<Path> targets = new HashSet<>();
+			for (Path input : inputs) {
+				if (!targets.add(outputPath(input, config))) throw new Exception("duplicate output file " + outputPath(input, config));
+			}
+			Files.createDirectories(Paths.get(config.outputDir));
+		}
+		if (isSchemaFixed(config) && config.threads > 1 && inputs.size() > 1 && holder.transformer == null) {
+			JsonNode first = config.getSchemePath() != null ? null : firstDocument(inputs, config);
+			if (config.getSchemePath() != null || first != null) createTransformer(first, config, holder);
+		}
+		if (holder.transformer == null || !isSchemaFixed(config) || config.threads <= 1 || inputs.size() == 1) {
+			for (Path input : inputs) {
+				if (merged != null) {
+					transform(lines(input, config), config, holder, merged, config.threads);
+				} else {
+					try (Output output = Output.of(outputPath(input, config), config, true, config.gzip ? compressionThreads(config) : 0)) {
+						transform(lines(input, config), config, holder, output, config.threads);
+					}
+				}
+			}
+			return;
+		}
+		if (merged != null) merged.writeCsvHeader(holder);
+		int files = Math.min(config.threads, inputs.size());
+		int threads = config.threads / files; //threads of every file
+		Path partsDirectory = config.getOutputPath() != null ? Paths.get(config.getOutputPath()).toAbsolutePath().getParent() : null;
+		Set<Path> parts = ConcurrentHashMap.newKeySet(); //temporary files to delete
+		ExecutorService pool = Executors.newFixedThreadPool(files);
+		List<Future<Path>> results = new ArrayList<>();
+		try {
+			for (Path input : inputs) {
+				results.add(pool.submit(() -> {
+					Path target;
+					if (merged != null) {
+						target = partsDirectory != null ? Files.createTempFile(partsDirectory, "jsonflat", ".part") : Files.createTempFile("jsonflat", ".part");
+						parts.add(target);
+					} else {
+						target = outputPath(input, config);
+					}
+					//files are compressed concurrently, so every file has a single compressing thread
+					try (Output output = Output.of(target, config, merged == null, merged == null && config.gzip ? 1 : 0)) {
+						transform(lines(input, config), config, holder, output, threads > 1 ? threads : 0);
+					}
+					return target;
+				}));
+			}
+			for (Future<Path> result : results) {
+				Path target;
+				try {
+					target = result.get();
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+				if (merged != null) {
+					merged.flush();
+					Files.copy(target, merged.out);
+					Files.delete(target);
+					parts.remove(target);
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); //running tasks may still create temporary files
+			for (Path part : parts) {
+				Files.deleteIfExists(part);
+			}
+		}
+	}
+
+	/**
+	 * Reads documents of input files till the first one parsed, used to create the schema before files are
+	 * processed concurrently. Parsing is not reported to metrics, the document is parsed again with its file
+	 * @return the first document of files, null if files have no documents
+	 */
+	private static JsonNode firstDocument(List<Path> inputs, Config config) throws IOException {
+		for (Path input : inputs) {
+			try (Stream<InputLine> lines = lines(input, config)) {
+				Iterator<InputLine> iterator = lines.iterator();
+				while (iterator.hasNext()) {
+					try (JsonParser parser = iterator.next().createParser(Transformer.MAPPER.getFactory())) {
+						JsonNode json = Transformer.MAPPER.readTree(parser);
+						if (json == null) continue;
+						for (JsonNode document : documents(json)) {
+							if (document.isObject()) return document;
 						}
-						holder.transformer = new Transformer(schema);
-					} else if (config.getSchemePath() == null && !config.schemaByFirstLine) {
-						Schema newSchema = AutoSchemaFactory.builder()
-								.columnStringFilters(config.getColumns())
-								.filterRowsPath(config.getJsonFilter())
-								.delimiter(config.delimiter)
-								.primitiveArraysGroup(
-										config.explodeSimpleArrays ?
-												Schema.GroupPolicy.NO_GROUP :
-												config.csv ?
-														Schema.GroupPolicy.CONCAT :
-														Schema.GroupPolicy.ARRAY
-								)
-								.complexArraysGroup(
-										config.explodeComplexArraysToColumns ?
-												Schema.GroupPolicy.COLUMNS : Schema.GroupPolicy.NO_GROUP
-								)
-								.build()
-								.generate(json);
-						holder.transformer.getSchema().merge(newSchema);
+					} catch (IOException e) {
+						//skip, as transformation does
 					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return file of output directory named by input file and output format
+	 */
+	private static Path outputPath(Path input, Config config) {
+		String extension = config.csv ? "csv" : config.format.name().toLowerCase(Locale.ROOT);
+		if (config.gzip) extension += ".gz";
+		return Paths.get(config.outputDir).resolve(input.getFileName() + "." + extension);
+	}
+
+	/**
+	 * @return threads compressing gzip output: "-t" threads or all processors
+	 */
+	private static int compressionThreads(Config config) {
+		return config.threads > 0 ? config.threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	private static void transformLine(InputLine line, Config config, SchemaHolder holder, Output output) {
+		holder.line.set(line);
+		try {
+			if (holder.transformer != null && isSchemaFixed(config)) {
+				//schema is fixed, read only used parts of document
+				try (JsonParser parser = line.createParser(Transformer.MAPPER.getFactory())) {
 					if (config.csv) {
-						for (JsonNode node : holder.transformer.transform(json))
-							out.println(JsonUtils.writeCsvValue(holder.columnNames, node, CSV_DELIMITER));
+						CsvRowWriter csv = csvWriter(prefix(line, config), config, holder);
+						holder.transformer.writeRows(parser, csv);
+						writeCsv(csv, holder, output);
 					} else {
-						for (JsonNode node : holder.transformer.transform(json))
-							out.println(node.toString());
+						output.rowWriter.setPrefix(prefix(line, config));
+						holder.transformer.writeRows(parser, output.rowWriter);
 					}
-				} catch (IOException e) {
-					//skip, do nothing
 				}
-			});
-		} catch (Exception e) {
-			System.err.println("Error: " + e.getLocalizedMessage());
-			e.printStackTrace();
+			} else {
+				writeRows(readWithAutoSchema(line, config, holder, output), prefix(line, config), config, holder, output);
+			}
+		} catch (IOException e) {
+			//skip, do nothing
+		}
+	}
+
+	/**
+	 * Lines are parsed and transformed by worker threads, output is written by a single writer thread.
+	 * The schema is created by the first JSON line, so lines are processed sequentially till it.
+	 */
+	private static void transformParallel(Stream<InputLine> lines, int threads, Config config, SchemaHolder holder, Output output) throws Exception {
+		Iterator<InputLine> iterator = lines.iterator();
+		while (holder.transformer == null && iterator.hasNext()) {
+			transformLine(iterator.next(), config, holder, output);
+		}
+		int capacity = threads * LINES_PER_THREAD;
+		if (isSchemaFixed(config) && config.format.isBinary()) {
+			//binary output keeps state between rows (e.g. back-references of smile), so rows are written by writer thread
+			try (ParallelPipeline<InputLine, TransformedLine> pipeline = new ParallelPipeline<>(
+					threads, capacity, !config.unordered,
+					line -> {
+						holder.line.set(line);
+						try (JsonParser parser = line.createParser(Transformer.MAPPER.getFactory())) {
+							return new TransformedLine(holder.transformer.transform(parser), prefix(line, config));
+						} catch (IOException e) {
+							return null; //skip, do nothing
+						}
+					},
+					transformed -> {
+						if (transformed == null) return;
+						long start = System.nanoTime();
+						try {
+							output.rowWriter.setPrefix(transformed.prefix);
+							for (JsonNode row : transformed.rows) {
+								output.rowWriter.write(row);
+							}
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						holder.metrics.written(System.nanoTime() - start);
+					})) {
+				while (iterator.hasNext()) pipeline.submit(iterator.next());
+			}
+		} else if (isSchemaFixed(config)) {
+			try (ParallelPipeline<InputLine, String> pipeline = new ParallelPipeline<>(
+					threads, capacity, !config.unordered,
+					line -> {
+						holder.line.set(line);
+						try {
+							return transformToString(line, config, holder);
+						} catch (IOException e) {
+							return ""; //skip, do nothing
+						}
+					},
+					rows -> {
+						long start = System.nanoTime();
+						try {
+							if (config.csv) {
+								output.out.print(rows);
+							} else {
+								output.rowWriter.getGenerator().writeRaw(rows);
+							}
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						holder.metrics.written(System.nanoTime() - start);
+					})) {
+				while (iterator.hasNext()) pipeline.submit(iterator.next());
+			}
+		} else {
+			//the schema is merged with schema of every line, so merge and transformation are done by writer thread
+			try (ParallelPipeline<InputLine, ParsedLine> pipeline = new ParallelPipeline<>(
+					threads, capacity, !config.unordered,
+					line -> {
+						try {
+							JsonNode json = parse(line, holder);
+							//elements of array are merged one by one by writer thread
+							long fingerprint = json.isArray() ? 0 : AutoSchemaMerger.fingerprint(json);
+							Schema schema = json.isArray() || holder.merger.isKnown(fingerprint) ? null : holder.merger.getFactory().generate(json);
+							return new ParsedLine(json, fingerprint, schema, prefix(line, config));
+						} catch (IOException e) {
+							return null; //skip, do nothing
+						}
+					},
+					parsed -> {
+						if (parsed == null) return;
+						if (parsed.json.isArray()) {
+							for (JsonNode element : parsed.json) {
+								if (element.isObject()) mergeSchema(element, AutoSchemaMerger.fingerprint(element), null, config, holder);
+							}
+						} else {
+							mergeSchema(parsed.json, parsed.fingerprint, parsed.schema, config, holder);
+						}
+						try {
+							writeRows(parsed.json, parsed.prefix, config, holder, output);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					})) {
+				while (iterator.hasNext()) pipeline.submit(iterator.next());
+			}
+		}
+	}
+
+	private static boolean isSchemaFixed(Config config) {
+		return config.getSchemePath() != null || config.schemaByFirstLine;
+	}
+
+	/**
+	 * Transforms line with fixed schema to output text, used by worker threads
+	 */
+	private static String transformToString(InputLine line, Config config, SchemaHolder holder) throws IOException {
+		StringWriter result = new StringWriter();
+		//schema is fixed, read only used parts of document
+		try (JsonParser parser = line.createParser(Transformer.MAPPER.getFactory())) {
+			if (config.csv) {
+				CsvRowWriter csv = csvWriter(prefix(line, config), config, holder);
+				holder.transformer.writeRows(parser, csv);
+				return csv.getBuffer().toString();
+			} else {
+				JsonRowWriter writer = new JsonRowWriter(Transformer.MAPPER.getFactory().createGenerator(result));
+				writer.setPrefixNames(config.prefixNames);
+				writer.setPrefix(prefix(line, config));
+				holder.transformer.writeRows(parser, writer);
+				writer.flush();
+			}
 		}
+		return result.toString();
 	}
 
+	/**
+	 * Parses line and creates schema by it or merges its schema, elements of top-level array are merged one by one
+	 * @return parsed line
+	 */
+	private static JsonNode readWithAutoSchema(InputLine line, Config config, SchemaHolder holder, Output output) throws IOException {
+		JsonNode json = parse(line, holder);
+		for (JsonNode document : documents(json)) {
+			if (!document.isObject()) continue;
+			if (holder.transformer == null) {
+				createTransformer(document, config, holder);
+				output.writeCsvHeader(holder);
+			} else if (!isSchemaFixed(config)) {
+				mergeSchema(document, AutoSchemaMerger.fingerprint(document), null, config, holder);
+			}
+		}
+		return json;
+	}
+
+	/**
+	 * Merges schema of document into schema of transformer, new columns are checked by {@link #checkPrefixNames(Schema, Config)}
+	 * @param schema generated schema of document, null to generate it if needed
+	 */
+	private static void mergeSchema(JsonNode document, long fingerprint, Schema schema, Config config, SchemaHolder holder) {
+		Schema target = holder.transformer.getSchema();
+		if (holder.merger.merge(target, document, fingerprint, schema)) checkPrefixNames(target, config);
+	}
+
+	/**
+	 * Fields of log prefix are written as columns of every row, so their names can't be names of schema columns
+	 * @throws IllegalArgumentException if a name of "-p" parameter is a column of schema
+	 */
+	private static void checkPrefixNames(Schema schema, Config config) {
+		if (config.prefixNames.isEmpty()) return;
+		List<String> columnNames = schema.getResultNames();
+		for (String name : config.prefixNames) {
+			if (columnNames.contains(name)) throw new IllegalArgumentException("'-p' column '" + name + "' is also a column of schema");
+		}
+	}
+
+	/**
+	 * @return elements of top-level array or the document itself
+	 */
+	private static Iterable<JsonNode> documents(JsonNode json) {
+		return json.isArray() ? json : Collections.singletonList(json);
+	}
+
+	/**
+	 * Creates transformer by schema file or by schema of the first document
+	 * @param json the first document, not used with schema file
+	 */
+	private static void createTransformer(JsonNode json, Config config, SchemaHolder holder) throws IOException {
+		Schema schema;
+		if (config.getSchemePath() != null) {
+			String schemaString = new String(Files.readAllBytes(Paths.get(config.getSchemePath())));
+			schema = JsonSchemaFactory.builder().build().generate(schemaString);
+		} else {
+			AutoSchemaFactory factory = autoSchemaFactory(config);
+			schema = factory.generate(json);
+			if (!config.schemaByFirstLine) {
+				//schema of every line is merged, skip lines of known shape
+				holder.merger = new AutoSchemaMerger(factory);
+				holder.merger.merge(schema, json);
+			}
+		}
+		checkPrefixNames(schema, config);
+		if (config.csv) {
+			List<String> columnNames = schema.getResultNames();
+			holder.csvWriters = ThreadLocal.withInitial(() -> new CsvRowWriter(columnNames, CSV_DELIMITER, LINE_SEPARATOR));
+			List<String> header = new ArrayList<>(config.prefixNames);
+			header.addAll(columnNames);
+			holder.csvHeader = header;
+		}
+		holder.transformer = new Transformer(schema);
+		holder.transformer.setMetrics(holder.metrics);
+		holder.transformer.setLimits(rowLimits(config, holder));
+	}
+
+	/**
+	 * Parses whole line, parsing time and failures are reported to metrics
+	 */
+	private static JsonNode parse(InputLine line, SchemaHolder holder) throws IOException {
+		long start = System.nanoTime();
+		JsonNode json;
+		try (JsonParser parser = line.createParser(Transformer.MAPPER.getFactory())) {
+			json = Transformer.MAPPER.readTree(parser);
+			if (json == null) throw JsonMappingException.from(parser, "No content to map due to end-of-input");
+			if (!json.isContainerNode()) throw JsonMappingException.from(parser, "Not a json object or array");
+		} catch (JsonProcessingException e) {
+			//malformed, empty and not container lines are failures, so parsed and failed lines add up to input lines
+			holder.metrics.parseFailed();
+			throw e;
+		}
+		holder.metrics.parsed(System.nanoTime() - start);
+		return json;
+	}
+
+	/**
+	 * @return limits of rows of document, rejected documents are written as their input lines,
+	 * rejected elements of top-level arrays and documents of unknown lines (merge of auto schema in writer thread)
+	 * are written as parsed documents
+	 */
+	private static RowLimits rowLimits(Config config, SchemaHolder holder) {
+		return RowLimits.builder()
+				.maxRows(config.maxRows)
+				.maxBytes(config.maxBytes)
+				.policy(config.overLimit)
+				.rejected(holder.rejects == null ? null : document -> {
+					InputLine line = holder.line.get();
+					//element of array is rejected alone, other elements of its line may be written
+					holder.rejects.println(line != null && !line.isArray() ? line.toString() : document.toString());
+				})
+				.build();
+	}
+
+	private static AutoSchemaFactory autoSchemaFactory(Config config) {
+		return AutoSchemaFactory.builder()
+				.columnStringFilters(config.getColumns())
+				.filterRowsPath(config.getJsonFilter())
+				.delimiter(config.delimiter)
+				.primitiveArraysGroup(
+						config.explodeSimpleArrays ?
+								Schema.GroupPolicy.NO_GROUP :
+								config.csv ?
+										Schema.GroupPolicy.CONCAT :
+										Schema.GroupPolicy.ARRAY
+				)
+				.complexArraysGroup(
+						config.explodeComplexArraysToColumns ?
+								Schema.GroupPolicy.COLUMNS : Schema.GroupPolicy.NO_GROUP
+				)
+				.build();
+	}
+
+	/**
+	 * Writes rows of parsed line, elements of top-level array are transformed one by one
+	 */
+	private static void writeRows(JsonNode json, LogPrefix prefix, Config config, SchemaHolder holder, Output output) throws IOException {
+		//empty array before the first document
+		if (holder.transformer == null) return;
+		if (config.csv) {
+			CsvRowWriter csv = csvWriter(prefix, config, holder);
+			for (JsonNode document : documents(json)) holder.transformer.writeRows(document, csv);
+			writeCsv(csv, holder, output);
+		} else {
+			output.rowWriter.setPrefix(prefix);
+			for (JsonNode document : documents(json)) holder.transformer.writeRows(document, output.rowWriter);
+		}
+	}
+
+	/**
+	 * @return csv writer of current thread with empty buffer and prefix of the line
+	 */
+	private static CsvRowWriter csvWriter(LogPrefix prefix, Config config, SchemaHolder holder) {
+		CsvRowWriter writer = holder.csvWriters.get();
+		writer.getBuffer().setLength(0);
+		StringBuilder csvPrefix = writer.getPrefix();
+		csvPrefix.setLength(0);
+		appendCsvPrefix(csvPrefix, prefix, config);
+		return writer;
+	}
+
+	private static void writeCsv(CsvRowWriter csv, SchemaHolder holder, Output output) {
+		long start = System.nanoTime();
+		output.out.print(csv.getBuffer());
+		holder.metrics.written(System.nanoTime() - start);
+	}
+
+	/**
+	 * @return log prefix of line if its fields are written, empty prefix otherwise
+	 */
+	private static LogPrefix prefix(InputLine line, Config config) {
+		return config.prefixNames.isEmpty() ? LogPrefix.EMPTY : line.getPrefix();
+	}
+
+	/**
+	 * Appends csv values of prefix fields followed by delimiter, nothing if prefix fields are not written.
+	 * It is done once per line, rows of the line reuse the text
+	 */
+	private static void appendCsvPrefix(StringBuilder result, LogPrefix prefix, Config config) {
+		for (int i = 0; i < config.prefixNames.size(); i++) {
+			if (i < prefix.size()) JsonUtils.appendQuoted(result, prefix.get(i));
+			result.append(CSV_DELIMITER);
+		}
+	}
 
 	@Getter
 	static class Config {
-		String inputPath;
+		List<String> inputs = new ArrayList<>(); //files, directories and glob patterns
 		String outputPath;
+		String outputDir;        //directory of output files per input file
 		List<String> columns = Collections.emptyList();
+		List<String> prefixNames = Collections.emptyList();
 		String jsonFilter;
 		String schemePath;
 		String delimiter = Schema.DEFAULT_DELIMITER;
@@ -160,23 +650,30 @@ public class App {
 		boolean schemaByFirstLine = false;
 		boolean help;
 		boolean csv;
+		RowFormat format = RowFormat.JSON;
+		boolean gzip;
 		boolean explodeSimpleArrays;
 		boolean explodeComplexArraysToColumns = false;
+		int threads;
+		boolean unordered;
+		boolean stats;
+		long maxRows;
+		long maxBytes;
+		RowLimits.Policy overLimit = RowLimits.Policy.TRUNCATE;
+		String rejectsPath;
 
 
 		private static Config build(String[] args) throws Exception {
 			Config config = new Config();
 			List<String> params = new ArrayList<>(Arrays.asList(args));
 			config.help = params.remove("-h");
-			popParameter("-i", params).ifPresent(
-				v-> {
-					config.inputPath = v;
-					if (!Files.isReadable(Paths.get(v))) {
-						throw new RuntimeException("can't read input file " + v);
-					}
-				}
-		  );
+			Optional<String> input;
+			while ((input = popParameter("-i", params)).isPresent()) {
+				config.inputs.add(input.get());
+			}
 			popParameter("-o", params).ifPresent(v -> config.outputPath = v);
+			popParameter("-od", params).ifPresent(v -> config.outputDir = v);
+			if (config.outputPath != null && config.outputDir != null) throw new Exception("'-o' and '-od' parameters can't be used together");
 			popParameter("-f", params).ifPresent(
 				v -> {
 					config.jsonFilter = v;
@@ -192,14 +689,63 @@ public class App {
 			);
 			popParameter("-d", params).ifPresent(v -> config.delimiter = v);
 			popParameter("-e", params).ifPresent(v -> config.encoding = v);
+			popParameter("-p", params).ifPresent(v -> config.prefixNames = Arrays.asList(v.split(",")));
+			Optional<String> threads = popParameter("-t", params);
+			if (threads.isPresent()) {
+				try {
+					config.threads = Integer.parseInt(threads.get());
+				} catch (NumberFormatException e) {
+					config.threads = 0;
+				}
+				if (config.threads <= 0) throw new Exception("check '-t' parameter value");
+			}
+			config.unordered = params.remove("-u");
 			config.schemaByFirstLine = params.remove("-n");
 			config.csv = params.remove("-csv");
+			if (params.remove("-smile")) config.format = RowFormat.SMILE;
+			if (params.remove("-cbor")) {
+				if (config.format.isBinary()) throw new Exception("'-smile' and '-cbor' parameters can't be used together");
+				config.format = RowFormat.CBOR;
+			}
+			if (config.csv && config.format.isBinary()) throw new Exception("'-csv' parameter can't be used with binary format");
+			config.gzip = params.remove("-gz");
+			config.stats = params.remove("-stats");
+			config.maxRows = popLimit("-maxRows", params);
+			config.maxBytes = popLimit("-maxBytes", params);
+			popParameter("-rejects", params).ifPresent(v -> {
+				config.rejectsPath = v;
+				config.overLimit = RowLimits.Policy.REJECT;
+			});
+			Optional<String> overLimit = popParameter("-overLimit", params);
+			if (overLimit.isPresent()) {
+				try {
+					config.overLimit = RowLimits.Policy.valueOf(overLimit.get().toUpperCase(Locale.ROOT));
+				} catch (IllegalArgumentException e) {
+					throw new Exception("check '-overLimit' parameter value");
+				}
+			}
+			if (config.overLimit == RowLimits.Policy.REJECT && config.rejectsPath == null) {
+				throw new Exception("'-overLimit reject' needs '-rejects' parameter");
+			}
 			config.explodeSimpleArrays = params.remove("-a");
 			config.explodeComplexArraysToColumns = params.remove("-c");
 			config.columns = params;
 			return config;
 		}
 
+		private static long popLimit(String param, List<String> params) throws Exception {
+			Optional<String> value = popParameter(param, params);
+			if (!value.isPresent()) return 0;
+			long limit;
+			try {
+				limit = Long.parseLong(value.get());
+			} catch (NumberFormatException e) {
+				limit = 0;
+			}
+			if (limit <= 0) throw new Exception("check '" + param + "' parameter value");
+			return limit;
+		}
+
 		private static Optional<String> popParameter(String param, List<String> params) throws Exception {
 			int idx = params.indexOf(param);
 			if (idx >= 0) {
@@ -221,6 +767,83 @@ public class App {
 	@Data
 	private static class SchemaHolder {
 		Transformer transformer;
-		List<String> columnNames;
+		ThreadLocal<CsvRowWriter> csvWriters; //writers of csv rows by columns of the first schema
+		List<String> csvHeader;  //header of csv outputs, null till schema is created
+		AutoSchemaMerger merger; //merger of schemas of every line
+		TransformMetrics metrics = TransformMetrics.NONE;
+		PrintStream rejects;     //output of documents over row limits
+		ThreadLocal<InputLine> line = new ThreadLocal<>(); //line transformed by current thread
+	}
+
+	/**
+	 * Output stream with writer of rows, csv header is written once the schema is created
+	 */
+	private static class Output implements Closeable {
+		final PrintStream out;
+		final JsonRowWriter rowWriter; //writer of json or binary output, null for csv
+		boolean header;                //csv header is not written yet
+		private final OutputStream target;
+		private final ParallelGzipOutputStream gzip; //null if output is not compressed
+
+		/**
+		 * @param compressionThreads threads compressing output with gzip, 0 if output is not compressed
+		 */
+		Output(PrintStream target, Config config, boolean header, int compressionThreads) throws IOException {
+			this.target = target;
+			if (compressionThreads > 0) {
+				gzip = new ParallelGzipOutputStream(target, compressionThreads);
+				out = new PrintStream(gzip);
+			} else {
+				gzip = null;
+				out = target;
+			}
+			this.header = config.csv && header;
+			if (config.format.isBinary()) {
+				rowWriter = config.format.createWriter(out);
+				rowWriter.setPrefixNames(config.prefixNames);
+			} else if (!config.csv) {
+				rowWriter = new JsonRowWriter(Transformer.MAPPER.getFactory().createGenerator(new OutputStreamWriter(out)));
+				rowWriter.setPrefixNames(config.prefixNames);
+			} else {
+				rowWriter = null;
+			}
+		}
+
+		static Output of(Path path, Config config, boolean header, int compressionThreads) throws IOException {
+			return new Output(new PrintStream(new BufferedOutputStream(Files.newOutputStream(path))), config, header, compressionThreads);
+		}
+
+		void writeCsvHeader(SchemaHolder holder) {
+			if (header && holder.csvHeader != null) {
+				out.println(JsonUtils.writeCsvHeader(holder.csvHeader, CSV_DELIMITER));
+				header = false;
+			}
+		}
+
+		void flush() throws IOException {
+			if (rowWriter != null) rowWriter.flush();
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+			if (gzip != null) gzip.finish();
+			if (target != System.out) out.close();
+		}
+	}
+
+	@AllArgsConstructor
+	private static class TransformedLine {
+		final List<JsonNode> rows;
+		final LogPrefix prefix;
+	}
+
+	@AllArgsConstructor
+	private static class ParsedLine {
+		final JsonNode json;
+		final long fingerprint;
+		final Schema schema; //null if shape is already known
+		final LogPrefix prefix;
 	}
 }
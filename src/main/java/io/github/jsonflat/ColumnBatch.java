@@ -0,0 +1,178 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.model.CompositeValue;
+import io.github.jsonflat.model.JsonValue;
+import io.github.jsonflat.model.Value;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Columnar batch of rows: a {@link ColumnVector} per result column. Columns follow names of schema result,
+ * columns of cells with other names (e.g. by {@link io.github.jsonflat.schema.Schema.GroupPolicy#COLUMNS}) are appended
+ * in order of appearance. Rows are the same as of {@link FlatTransformer#transform(JsonNode)}:
+ * rows with empty required cells are skipped, empty cells are null, a repeated column name keeps the last value.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ColumnBatch implements Serializable {
+	private final List<ColumnVector> columns;
+	private final int rowCount;
+
+	private ColumnBatch(List<ColumnVector> columns, int rowCount) {
+		this.columns = Collections.unmodifiableList(columns);
+		this.rowCount = rowCount;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public List<ColumnVector> getColumns() {
+		return columns;
+	}
+
+	public List<String> getNames() {
+		List<String> names = new ArrayList<>(columns.size());
+		for (ColumnVector column : columns) {
+			names.add(column.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * @return column with the name, null if there is no such column
+	 */
+	public ColumnVector getColumn(String name) {
+		for (ColumnVector column : columns) {
+			if (column.getName().equals(name)) return column;
+		}
+		return null;
+	}
+
+	/**
+	 * Appends rows of cells directly to column vectors. Not thread safe
+	 */
+	public static class Builder {
+		private final List<ColumnVector> columns = new ArrayList<>();
+		private final Map<String, ColumnVector> index = new HashMap<>();
+		private ColumnVector[] columnsById = new ColumnVector[64]; //columns by id of interned cell name
+		private String[] namesById = new String[64];
+		private int rowCount;
+
+		/**
+		 * @param names names of result columns, see {@link io.github.jsonflat.schema.Schema#getResultNames()}
+		 */
+		public Builder(List<String> names) {
+			for (String name : names) {
+				column(name);
+			}
+		}
+
+		/**
+		 * @param row cells of row
+		 * @return false if row is skipped because of empty required cell
+		 */
+		public boolean append(List<Cell> row) {
+			for (Cell cell : row) {
+				if (!isValid(cell.getValue())) return false;
+			}
+			for (Cell cell : row) {
+				write(cell);
+			}
+			rowCount++;
+			return true;
+		}
+
+		/**
+		 * Appends all rows of iterator, see {@link FlatTransformer#rows(JsonNode)}
+		 * @return number of appended rows
+		 */
+		public int append(Iterator<List<Cell>> rows) {
+			int count = 0;
+			while (rows.hasNext()) {
+				if (append(rows.next())) count++;
+			}
+			return count;
+		}
+
+		public int getRowCount() {
+			return rowCount;
+		}
+
+		/**
+		 * @return batch of appended rows, the builder should not be used after that
+		 */
+		public ColumnBatch build() {
+			for (ColumnVector column : columns) {
+				column.finish(rowCount);
+			}
+			return new ColumnBatch(columns, rowCount);
+		}
+
+		private static boolean isValid(Value value) {
+			if (value instanceof CompositeValue) {
+				for (Cell c : (CompositeValue) value) {
+					if (!isValid(c.getValue())) return false;
+				}
+				return true;
+			}
+			return !value.isEmpty() || !value.isRequired();
+		}
+
+		private void write(Cell cell) {
+			Value value = cell.getValue();
+			if (value instanceof CompositeValue) {
+				for (Cell c : (CompositeValue) value) {
+					write(c);
+				}
+			} else if (!value.isEmpty()) {
+				column(cell).set(rowCount, ((JsonValue) value).getValue());
+			}
+		}
+
+		/**
+		 * @return column of cell, it is found by name once for every id of interned name
+		 */
+		private ColumnVector column(Cell cell) {
+			int id = cell.getId();
+			String name = cell.getName();
+			if (id < 0 || name == null) return column(name);
+			if (id >= namesById.length) {
+				int length = Math.max(id + 1, namesById.length * 2);
+				columnsById = Arrays.copyOf(columnsById, length);
+				namesById = Arrays.copyOf(namesById, length);
+			}
+			if (namesById[id] != name) { //names of table are interned, other name means other table
+				columnsById[id] = column(name);
+				namesById[id] = name;
+			}
+			return columnsById[id];
+		}
+
+		private ColumnVector column(String name) {
+			ColumnVector column = index.get(name);
+			if (column == null) {
+				column = new ColumnVector(name);
+				columns.add(column);
+				index.put(name, column);
+			}
+			return column;
+		}
+	}
+}
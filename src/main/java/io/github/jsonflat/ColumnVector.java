@@ -0,0 +1,250 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Values of one result column of {@link ColumnBatch} in a typed array with null bitmap.
+ * The type is inferred from values: integral numbers are stored as longs, floating point numbers as doubles
+ * (longs are widened if both appear), booleans as booleans. Other values and columns of mixed types are stored
+ * as dictionary-encoded strings: text of textual values, json of objects and arrays.
+ * Arrays of values should be read only for rows below {@link #size()}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ColumnVector implements Serializable {
+	private final String name;
+	private Type type = Type.NULL;
+	private int size;
+	private long[] nonNulls = new long[0]; //bit is set if value of row is not null
+	private long[] longs;
+	private double[] doubles;
+	private boolean[] booleans;
+	private int[] codes;                   //indexes of strings in dictionary
+	private List<String> dictionary;
+	private Map<String, Integer> dictionaryIndex;
+
+	ColumnVector(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isNull(int row) {
+		return (nonNulls[row >>> 6] & (1L << row)) == 0;
+	}
+
+	/**
+	 * @return bitmap of not null rows: bit (row % 64) of word (row / 64)
+	 */
+	public long[] getNonNulls() {
+		return nonNulls;
+	}
+
+	/**
+	 * @return values of {@link Type#LONG} column
+	 */
+	public long[] getLongs() {
+		return longs;
+	}
+
+	/**
+	 * @return values of {@link Type#DOUBLE} column
+	 */
+	public double[] getDoubles() {
+		return doubles;
+	}
+
+	/**
+	 * @return values of {@link Type#BOOLEAN} column
+	 */
+	public boolean[] getBooleans() {
+		return booleans;
+	}
+
+	/**
+	 * @return indexes of values of {@link Type#STRING} column in {@link #getDictionary()}
+	 */
+	public int[] getCodes() {
+		return codes;
+	}
+
+	/**
+	 * @return distinct values of {@link Type#STRING} column in order of appearance
+	 */
+	public List<String> getDictionary() {
+		return dictionary == null ? Collections.emptyList() : Collections.unmodifiableList(dictionary);
+	}
+
+	/**
+	 * @return value of {@link Type#STRING} column, null if value is null
+	 */
+	public String getString(int row) {
+		return isNull(row) ? null : dictionary.get(codes[row]);
+	}
+
+	/**
+	 * Sets value of row, rows between the last set row and this one are null. Value of the last row can be replaced
+	 * @param row   index of row, not less than index of the last set row
+	 * @param value value, null or json null for null
+	 */
+	void set(int row, JsonNode value) {
+		if (row >= size) {
+			ensureCapacity(row + 1);
+			size = row + 1;
+		}
+		if (value == null || value.isNull()) {
+			nonNulls[row >>> 6] &= ~(1L << row);
+			return;
+		}
+		Type valueType = typeOf(value);
+		if (valueType != type) promote(valueType);
+		switch (type) {
+			case LONG:
+				longs[row] = value.longValue();
+				break;
+			case DOUBLE:
+				doubles[row] = value.doubleValue();
+				break;
+			case BOOLEAN:
+				booleans[row] = value.booleanValue();
+				break;
+			default:
+				codes[row] = code(value.isContainerNode() ? value.toString() : value.asText());
+		}
+		nonNulls[row >>> 6] |= 1L << row;
+	}
+
+	/**
+	 * Sets size to number of rows, missing rows are null, and trims arrays to it
+	 */
+	void finish(int rows) {
+		if (rows > size) {
+			ensureCapacity(rows);
+			size = rows;
+		}
+		nonNulls = Arrays.copyOf(nonNulls, (size + 63) >>> 6);
+		if (longs != null) longs = Arrays.copyOf(longs, size);
+		if (doubles != null) doubles = Arrays.copyOf(doubles, size);
+		if (booleans != null) booleans = Arrays.copyOf(booleans, size);
+		if (codes != null) codes = Arrays.copyOf(codes, size);
+		dictionaryIndex = null;
+	}
+
+	private static Type typeOf(JsonNode value) {
+		if (value.isIntegralNumber() && value.canConvertToLong()) return Type.LONG;
+		if (value.isDouble() || value.isFloat()) return Type.DOUBLE;
+		if (value.isBoolean()) return Type.BOOLEAN;
+		return Type.STRING;
+	}
+
+	private void promote(Type valueType) {
+		if (type == Type.NULL) {
+			type = valueType;
+			allocate(nonNulls.length << 6);
+		} else if (type == Type.LONG && valueType == Type.DOUBLE) {
+			doubles = new double[longs.length];
+			for (int i = 0; i < size; i++) {
+				doubles[i] = longs[i];
+			}
+			longs = null;
+			type = Type.DOUBLE;
+		} else if (type != Type.STRING && !(type == Type.DOUBLE && valueType == Type.LONG)) {
+			//values of mixed types are kept as their text
+			codes = new int[nonNulls.length << 6];
+			dictionary = new ArrayList<>();
+			dictionaryIndex = new HashMap<>();
+			for (int i = 0; i < size; i++) {
+				if (!isNull(i)) codes[i] = code(text(i));
+			}
+			longs = null;
+			doubles = null;
+			booleans = null;
+			type = Type.STRING;
+		}
+	}
+
+	private String text(int row) {
+		switch (type) {
+			case LONG:
+				return Long.toString(longs[row]);
+			case DOUBLE:
+				return Double.toString(doubles[row]);
+			default:
+				return Boolean.toString(booleans[row]);
+		}
+	}
+
+	private int code(String value) {
+		Integer code = dictionaryIndex.get(value);
+		if (code == null) {
+			code = dictionary.size();
+			dictionary.add(value);
+			dictionaryIndex.put(value, code);
+		}
+		return code;
+	}
+
+	private void ensureCapacity(int rows) {
+		int capacity = nonNulls.length << 6;
+		if (rows <= capacity) return;
+		capacity = Math.max(rows, capacity * 2);
+		nonNulls = Arrays.copyOf(nonNulls, (capacity + 63) >>> 6);
+		capacity = nonNulls.length << 6;
+		if (longs != null) longs = Arrays.copyOf(longs, capacity);
+		if (doubles != null) doubles = Arrays.copyOf(doubles, capacity);
+		if (booleans != null) booleans = Arrays.copyOf(booleans, capacity);
+		if (codes != null) codes = Arrays.copyOf(codes, capacity);
+	}
+
+	private void allocate(int capacity) {
+		switch (type) {
+			case LONG:
+				longs = new long[capacity];
+				break;
+			case DOUBLE:
+				doubles = new double[capacity];
+				break;
+			case BOOLEAN:
+				booleans = new boolean[capacity];
+				break;
+			default:
+				codes = new int[capacity];
+				dictionary = new ArrayList<>();
+				dictionaryIndex = new HashMap<>();
+		}
+	}
+
+	public enum Type {
+		NULL,       //all values are null
+		LONG,
+		DOUBLE,
+		BOOLEAN,
+		STRING      //dictionary-encoded
+	}
+}
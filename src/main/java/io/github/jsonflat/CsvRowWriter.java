@@ -0,0 +1,135 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.model.CompositeValue;
+import io.github.jsonflat.model.JsonValue;
+import io.github.jsonflat.model.Value;
+import io.github.jsonflat.utils.JsonUtils;
+
+import java.util.*;
+
+/**
+ * Writes rows of cells as csv lines to a buffer without building ObjectNode rows.
+ * Values are placed by positions of columns: position of a cell is found by name once for every id
+ * of interned name (see {@link io.github.jsonflat.schema.NameTable}), so a row takes no hash lookups.
+ * Output is the same as of {@link JsonUtils#appendCsvValue(StringBuilder, List, JsonNode, String)}
+ * of rows built by {@link FlatTransformer#transform(JsonNode)}, cells of other columns are ignored.
+ * Not thread safe.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class CsvRowWriter implements RowWriter {
+	private final Map<String, Integer> columns = new HashMap<>(); //positions of columns by name
+	private final String delimiter;
+	private final String lineSeparator;
+	private final JsonNode[] values;     //values of current row
+	private final StringBuilder buffer = new StringBuilder();
+	private int[] positions = new int[64];        //positions by id, -1 if column is not written
+	private String[] positionNames = new String[64]; //names of cached positions, positions are cached for interned names
+	private final StringBuilder prefix = new StringBuilder();
+
+	/**
+	 * @param columns       names of columns, see {@link io.github.jsonflat.schema.Schema#getResultNames()}
+	 * @param delimiter     delimiter of values
+	 * @param lineSeparator text written after every row
+	 */
+	public CsvRowWriter(List<String> columns, String delimiter, String lineSeparator) {
+		for (String column : columns) {
+			this.columns.putIfAbsent(column, this.columns.size());
+		}
+		this.delimiter = delimiter;
+		this.lineSeparator = lineSeparator;
+		this.values = new JsonNode[this.columns.size()];
+	}
+
+	/**
+	 * @param prefix raw csv text written before every row, it should end with delimiter
+	 */
+	public void setPrefix(String prefix) {
+		this.prefix.setLength(0);
+		this.prefix.append(prefix);
+	}
+
+	/**
+	 * @return raw csv text written before every row, it can be changed in place between documents
+	 */
+	public StringBuilder getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * @return buffer of written rows, it can be read and cleared between rows
+	 */
+	public StringBuilder getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Writes row of cells to buffer
+	 * @param row cells of row
+	 * @return false if row is skipped because of empty required cell
+	 */
+	public boolean write(List<Cell> row) {
+		Arrays.fill(values, null);
+		for (Cell cell : row) {
+			if (!collect(cell)) return false;
+		}
+		JsonUtils.appendCsvValues(buffer.append(prefix), values, delimiter).append(lineSeparator);
+		return true;
+	}
+
+	@Override
+	public int write(Iterator<List<Cell>> rows) {
+		int count = 0;
+		while (rows.hasNext()) {
+			if (write(rows.next())) count++;
+		}
+		return count;
+	}
+
+	private boolean collect(Cell cell) {
+		Value value = cell.getValue();
+		if (value instanceof CompositeValue) {
+			for (Cell c : (CompositeValue) value) {
+				if (!collect(c)) return false;
+			}
+			return true;
+		}
+		if (value.isEmpty()) {
+			return !value.isRequired();
+		}
+		int position = position(cell);
+		if (position >= 0) values[position] = ((JsonValue) value).getValue();
+		return true;
+	}
+
+	private int position(Cell cell) {
+		int id = cell.getId();
+		String name = cell.getName();
+		if (id < 0 || name == null) return columns.getOrDefault(name, -1);
+		if (id >= positions.length) {
+			int length = Math.max(id + 1, positions.length * 2);
+			positions = Arrays.copyOf(positions, length);
+			positionNames = Arrays.copyOf(positionNames, length);
+		}
+		if (positionNames[id] != name) { //names of table are interned, other name means other table
+			positions[id] = columns.getOrDefault(name, -1);
+			positionNames[id] = name;
+		}
+		return positions[id];
+	}
+}
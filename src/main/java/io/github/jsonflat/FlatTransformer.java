@@ -5,15 +5,15 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.jsonflat.schema.ExecutionPlan;
+import io.github.jsonflat.schema.NameTable;
 import io.github.jsonflat.schema.converter.Converter;
-import com.jayway.jsonpath.JsonPath;
+import io.github.jsonflat.schema.converter.SkipRowException;
 import io.github.jsonflat.schema.Schema;
 import io.github.jsonflat.utils.CartesianProduct;
-import io.github.jsonflat.utils.StringUtils;
 import io.github.jsonflat.model.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 import java.util.*;
@@ -37,10 +37,18 @@ import java.util.stream.Collectors;
  */
 
 public class FlatTransformer implements Serializable {
-	Collection<Schema.Column> transformScheme;
+	private final ExecutionPlan plan;
 
 	public FlatTransformer(Collection<Schema.Column> transformScheme) {
-		this.transformScheme = transformScheme;
+		this(ExecutionPlan.compile(transformScheme));
+	}
+
+	public FlatTransformer(ExecutionPlan plan) {
+		this.plan = plan;
+	}
+
+	public ExecutionPlan getPlan() {
+		return plan;
 	}
 
 	/**
@@ -50,49 +58,94 @@ public class FlatTransformer implements Serializable {
 	 */
 
 	public List<JsonNode> transform(JsonNode document) {
+		return transform(rows(document));
+	}
+
+	/**
+	 * Builds flat Json documents of rows
+	 * @param rows rows of cells, see {@link #rows(JsonNode)}
+	 * @return list of flat Json documents
+	 */
+	public static List<JsonNode> transform(Iterator<List<Cell>> rows) {
+		List<JsonNode> result = new ArrayList<>();
+		while (rows.hasNext()) {
+			ObjectNode e = toNode(rows.next());
+			if (e != null) {
+				result.add(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param row cells of row
+	 * @return flat Json document, null if row is skipped because of empty required cell
+	 */
+	public static ObjectNode toNode(List<Cell> row) {
+		ObjectNode e = JsonNodeFactory.instance.objectNode(); //transform cell to JsonNode
+		for (Cell v : row) {
+			if (!v.writeToNode(e)) {
+				return null;
+			}
+		}
+		return e;
+	}
+
+	/**
+	 * Transforms Json document to not empty rows of cells without building result documents.
+	 * Rows with empty required cells are not filtered, see {@link Cell#writeToNode(ObjectNode)}
+	 * @param document json to transformation
+	 * @return iterator of rows, a row is valid till the next call of {@link Iterator#hasNext()} or {@link Iterator#next()}
+	 */
+	public Iterator<List<Cell>> rows(JsonNode document) {
 		List<ColumnResult> columnResults = new ArrayList<>();
-		for (Schema.Column columnScheme : transformScheme) {
+		for (ExecutionPlan.Column columnScheme : plan.getColumns()) {
 			try {
-				ColumnResult c = eval(document, columnScheme, null);
+				ColumnResult c = eval(document, columnScheme, NameTable.NONE);
 				columnResults.add(c);
 			} catch (StopTransformationRuntimeException ex) {
 				columnResults.clear();
 				break;
 			}
 		}
-		List<List<Cell>> rowList = cartesian(columnResults);
-		List<JsonNode> result = new ArrayList<>(rowList.size());
-		for (List<Cell> list: rowList) {
-			if (Cell.isNotEmptyRow(list)) {
-				ObjectNode e = JsonNodeFactory.instance.objectNode(); //transform cell to JsonNode
-				boolean addRowToResult = true;
-				for (Cell v : list) {
-					if (!v.writeToNode(e)) {
-						addRowToResult = false;
-						break;
-					}
-				}
-				if (addRowToResult) {
-					result.add(e);
+		List<List<Cell>> factors = new ArrayList<>(columnResults.size());
+		for (ColumnResult columnResult : columnResults) {
+			factors.add(columnResult.toCells());
+		}
+		Iterator<List<Cell>> rows = new Rows(factors);
+		return new Iterator<List<Cell>>() {
+			private List<Cell> next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && rows.hasNext()) {
+					List<Cell> list = rows.next();
+					if (Cell.isNotEmptyRow(list)) next = list;
 				}
+				return next != null;
 			}
-		}
-		return result;
+
+			@Override
+			public List<Cell> next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				List<Cell> result = next;
+				next = null;
+				return result;
+			}
+		};
 	}
 
 	/**
 	 * Evaluate column from json node
 	 * @param element current node
 	 * @param columnScheme schema of current column
-	 * @param parentName name of parent
+	 * @param parentId id of parent name in {@link ExecutionPlan#getNames()}
 	 * @return List of values and column name
 	 */
-	private ColumnResult eval(JsonNode element, Schema.Column columnScheme, String parentName) {
-		final ColumnResult result = new ColumnResult();
-		result.setName(columnScheme.getFullname(parentName));
-		String path = StringUtils.isNotBlank(columnScheme.getPath()) ? columnScheme.getPath() : columnScheme.getName();
-		ArrayNode jsonPathValues = (element != null && path != null) ? JsonPath.read(element, path) : null;
-		if (jsonPathValues == null || jsonPathValues.size() == 0) {
+	private ColumnResult eval(JsonNode element, ExecutionPlan.Column columnScheme, int parentId) {
+		final ColumnResult result = new ColumnResult(columnScheme.getResultId(parentId));
+		List<JsonNode> jpathResult = columnScheme.read(element);
+		if (jpathResult.isEmpty()) {
 			if (columnScheme.isSkipJsonIfEmpty()) {
 				throw new StopTransformationRuntimeException();
 			}
@@ -100,57 +153,34 @@ public class FlatTransformer implements Serializable {
 				result.setValues(Collections.singletonList(new NullValue(columnScheme.isSkipRowIfEmpty())));
 			} else {
 				List<ColumnResult> subColumnResults = new ArrayList<>(columnScheme.getColumns().size());
-				for (Schema.Column subColumnScheme : columnScheme.getColumns()) {
-					ColumnResult c = eval(null, subColumnScheme, result.getName());
+				for (ExecutionPlan.Column subColumnScheme : columnScheme.getColumns()) {
+					ColumnResult c = eval(null, subColumnScheme, result.getId());
 					subColumnResults.add(c);
 				}
-				result.setValues(toCompositeValues(subColumnResults));
+				result.setValues(product(subColumnResults));
 				return result;
 			}
 			return result;
 		}
-		List<JsonNode> jpathResult = new ArrayList<>(jsonPathValues.size());
-		jsonPathValues.forEach(jpathResult::add);
 		//Processing leaf of json tree
 		if (columnScheme.getColumns().isEmpty()) {
 			result.getValues().addAll(
-					processLeaf(jpathResult, columnScheme, result.getName())
+					processLeaf(jpathResult, columnScheme, result.getId())
 			);
 		} else { //processing middle nodes
-			if (columnScheme.getGroup() == Schema.GroupPolicy.COLUMNS) {
-				List<ColumnResult> subColumnResults = new ArrayList<>(columnScheme.getColumns().size()); //if group by columns - create common list of sub columns
-				int i = 0;
-				for (JsonNode subNode : jpathResult) {
-					String resultColumnName = result.getName() + columnScheme.getSchema().getDelimiter() + (i++);
-					for (Schema.Column subColumnScheme : columnScheme.getColumns()) {
-						ColumnResult c = eval(subNode, subColumnScheme, resultColumnName);
-						if (!c.isEmpty()) subColumnResults.add(c);
-					}
-					if (subColumnResults.size()!=columnScheme.getColumns().size()) { //Filter object nodes (if it's not processed, then it's not defined in schema)
-						if (!subNode.isObject()) {
-							subColumnResults.add(
-									new ColumnResult(resultColumnName,
-											processLeaf(Collections.singletonList(subNode), columnScheme, resultColumnName)
-									)
-							);
-						}
-					}
-				}
-			}
-
 			List<Value> compositeValues = new ArrayList<>();
 			List<ColumnResult> subColumnResults = new ArrayList<>(columnScheme.getColumns().size()); //if group by columns - create common list of sub columns
 			int i = 0;
 			for (JsonNode subElement : jpathResult) {
-				String resultColumnName = columnScheme.getGroup() == Schema.GroupPolicy.COLUMNS ?
-						result.getName() + columnScheme.getSchema().getDelimiter() + i
-						: result.getName();
+				int resultColumnId = columnScheme.getGroup() == Schema.GroupPolicy.COLUMNS ?
+						columnScheme.getIndexedId(result.getId(), i)
+						: result.getId();
 				if (columnScheme.getGroup() != Schema.GroupPolicy.COLUMNS) {
 					subColumnResults = new ArrayList<>(columnScheme.getColumns().size()); //if group by columns - create list of sub columns for each element
 				}
 				boolean resultProcessed = false;
-				for (Schema.Column subColumnScheme : columnScheme.getColumns()) {
-					ColumnResult c = eval(subElement, subColumnScheme, resultColumnName);
+				for (ExecutionPlan.Column subColumnScheme : columnScheme.getColumns()) {
+					ColumnResult c = eval(subElement, subColumnScheme, resultColumnId);
 					if (!c.isEmpty()) {
 						subColumnResults.add(c);
 						resultProcessed = true;
@@ -160,24 +190,24 @@ public class FlatTransformer implements Serializable {
 					if (!subElement.isObject()) {
 						if (columnScheme.getGroup() != Schema.GroupPolicy.COLUMNS) {
 							 compositeValues.addAll(
-									processLeaf(Collections.singletonList(subElement), columnScheme, resultColumnName)
+									processLeaf(Collections.singletonList(subElement), columnScheme, resultColumnId)
 							);
 						} else {
 							subColumnResults.add(
-									new ColumnResult(resultColumnName,
-											processLeaf(Collections.singletonList(subElement), columnScheme, resultColumnName)
+									new ColumnResult(resultColumnId,
+											processLeaf(Collections.singletonList(subElement), columnScheme, resultColumnId)
 									)
 							);
 						}
 					}
 				} else if (columnScheme.getGroup() != Schema.GroupPolicy.COLUMNS) {
 					//if group policy is not COLUMNS add result for each element
-					compositeValues.addAll(toCompositeValues(subColumnResults));
+					compositeValues.addAll(product(subColumnResults));
 				}
 				i++;
 			}
 			if (columnScheme.getGroup() == Schema.GroupPolicy.COLUMNS) {
-				compositeValues.addAll(toCompositeValues(subColumnResults));
+				compositeValues.addAll(product(subColumnResults));
 			}
 			result.getValues().addAll(compositeValues);
 		}
@@ -188,13 +218,17 @@ public class FlatTransformer implements Serializable {
 	 * Transforms List of JsonNode to list of result Values according to column scheme
 	 * @param jsonPathValues result of json-path evaluation for column
 	 * @param columnScheme scheme of target colunm
-	 * @param parentName name of parent column (needs in case of COLUMN group policy)
+	 * @param parentId id of parent column name (needs in case of COLUMN group policy)
 	 * @return List of values of the cell
 	 */
-	private List<Value> processLeaf(List<JsonNode> jsonPathValues, Schema.Column columnScheme, String parentName) {
+	private List<Value> processLeaf(List<JsonNode> jsonPathValues, ExecutionPlan.Column columnScheme, int parentId) {
 		Converter converter = columnScheme.getConverter();
 		List<JsonNode> convertedNodes = new ArrayList<>(jsonPathValues.size());
-		jsonPathValues.forEach( e-> convertedNodes.add(converter.convert(e)));
+		try {
+			jsonPathValues.forEach( e-> convertedNodes.add(converter.convert(e)));
+		} catch (SkipRowException e) {
+			return Collections.singletonList(new NullValue(true)); //empty required value skips the row
+		}
 		switch (columnScheme.getGroup()) {
 			case ARRAY:
 				if (convertedNodes.size() == 1)
@@ -214,9 +248,11 @@ public class FlatTransformer implements Serializable {
 			case COLUMNS:
 				List<Cell> cells = new ArrayList<>(convertedNodes.size());
 				for (int i = 0; i < convertedNodes.size(); i++) {
+					int id = columnScheme.getIndexedId(parentId, i);
 					cells.add(
 							new Cell(
-									parentName + columnScheme.getSchema().getDelimiter() + i,
+									id,
+									plan.getNames().name(id),
 									new JsonValue(convertedNodes.get(i), columnScheme.isSkipRowIfEmpty())
 							)
 					);
@@ -232,42 +268,155 @@ public class FlatTransformer implements Serializable {
 		return Collections.emptyList();
 	}
 
-	private List<List<Cell>> cartesian(List<ColumnResult> subcolumns) {
-		return CartesianProduct.cartesianProduct(
-				subcolumns.stream()
-						.map(ColumnResult::toCells)
-						.collect(Collectors.toList())
-		);
+	/**
+	 * Combinations of values of sub columns are not built, they are expanded by {@link Rows} of document
+	 * @return product of values of sub columns, empty if there are no values
+	 */
+	private static List<Value> product(List<ColumnResult> subcolumns) {
+		List<List<Cell>> factors = new ArrayList<>(subcolumns.size());
+		for (ColumnResult subcolumn : subcolumns) {
+			if (!subcolumn.getValues().isEmpty()) factors.add(subcolumn.toCells());
+		}
+		if (factors.isEmpty()) return Collections.emptyList();
+		return Collections.singletonList(new Product(factors));
+	}
+
+	private static class StopTransformationRuntimeException extends RuntimeException {
 	}
 
-	private List<Value> toCompositeValues(List<ColumnResult> subcolumns) {
-		List<List<Cell>> rowList = cartesian(subcolumns);
-		List<Value> compositeValues = new ArrayList<>(rowList.size());
-		if (rowList.size() > 0) {
-			int rowLength = rowList.get(0).size();
-			for (List<Cell> cell : rowList) {
-				List<Cell> cellColumnValues = new ArrayList<>(rowLength);
-				for (int i = 0; i < rowLength; i++) {
-					cellColumnValues.add(cell.get(i));
+	/**
+	 * Not expanded cartesian product of cells of sub columns, every combination is a {@link CompositeValue}.
+	 * Every cell may be a product itself, so memory of nested arrays is a sum of their sizes, not a product
+	 */
+	@AllArgsConstructor
+	private static class Product implements Value {
+		private final List<List<Cell>> factors; //not empty cells of sub columns
+
+		@Override
+		public boolean isEmpty() {
+			for (List<Cell> factor : factors) {
+				for (Cell cell : factor) {
+					if (!cell.getValue().isEmpty()) return false;
 				}
-				compositeValues.add(new CompositeValue(cellColumnValues));
 			}
+			return true;
+		}
+
+		@Override
+		public boolean isRequired() {
+			return false; //required cells are checked in expanded rows
 		}
-		return compositeValues;
 	}
 
-	private static class StopTransformationRuntimeException extends RuntimeException {
+	/**
+	 * Rows of cartesian product of factors in the order of {@link CartesianProduct#iterator(List)},
+	 * empty factors are ignored. Cells of {@link Product} are expanded to combinations one by one,
+	 * so a row is built only when it is taken and rows over limits of document are never built.
+	 * The row is reused, it is valid till the next call of iterator, its cells are not changed later
+	 */
+	private static class Rows implements Iterator<List<Cell>> {
+		private final List<List<Cell>> factors = new ArrayList<>();
+		private final int[] indexes;                       //current cell of factor
+		private final List<Iterator<List<Cell>>> products; //combinations of current cell of factor, null if it is not a product
+		private final List<Cell> row;
+		private boolean started;
+		private boolean ready;
+		private boolean exhausted;
+
+		Rows(List<List<Cell>> lists) {
+			for (List<Cell> list : lists) {
+				if (!list.isEmpty()) factors.add(list);
+			}
+			indexes = new int[factors.size()];
+			products = new ArrayList<>(Collections.nCopies(factors.size(), null));
+			row = new ArrayList<>(Collections.nCopies(factors.size(), null));
+			exhausted = factors.isEmpty();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!ready && !exhausted) {
+				ready = started ? advance() : start();
+				exhausted = !ready;
+			}
+			return ready;
+		}
+
+		@Override
+		public List<Cell> next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			ready = false;
+			return row;
+		}
+
+		private boolean start() {
+			started = true;
+			for (int i = 0; i < factors.size(); i++) {
+				select(i);
+			}
+			return true;
+		}
+
+		/**
+		 * Moves to the next combination, the first factor changes fastest
+		 * @return false after the last combination
+		 */
+		private boolean advance() {
+			for (int i = 0; i < factors.size(); i++) {
+				Iterator<List<Cell>> product = products.get(i);
+				if (product != null && product.hasNext()) {
+					row.set(i, combination(factors.get(i).get(indexes[i]), product.next()));
+					return true;
+				}
+				if (indexes[i] < factors.get(i).size() - 1) {
+					indexes[i]++;
+					select(i);
+					return true;
+				}
+				if (i == factors.size() - 1) break;
+				indexes[i] = 0;
+				select(i);
+			}
+			return false;
+		}
+
+		/**
+		 * Sets current cell of factor to row, a product is set by its first combination
+		 */
+		private void select(int factor) {
+			Cell cell = factors.get(factor).get(indexes[factor]);
+			if (cell.getValue() instanceof Product) {
+				Iterator<List<Cell>> product = new Rows(((Product) cell.getValue()).factors);
+				products.set(factor, product);
+				row.set(factor, combination(cell, product.next()));
+			} else {
+				products.set(factor, null);
+				row.set(factor, cell);
+			}
+		}
+
+		private static Cell combination(Cell product, List<Cell> cells) {
+			return new Cell(product.getId(), product.getName(), new CompositeValue(new ArrayList<>(cells)));
+		}
 	}
 
 	@Data
-	@NoArgsConstructor
 	@AllArgsConstructor
-	private static class ColumnResult {
-		private String name;
-		private List<Value> values = new ArrayList<>();
+	private class ColumnResult {
+		private int id;     //id of name in NameTable of plan
+		private List<Value> values;
+
+		ColumnResult(int id) {
+			this(id, new ArrayList<>());
+		}
 
 		public List<Cell> toCells() {
-			return values.stream().map(v -> new Cell(name, v)).collect(Collectors.toList());
+			String name = plan.getNames().name(id);
+			List<Cell> cells = new ArrayList<>(values.size());
+			for (Value v : values) {
+				cells.add(new Cell(id, name, v));
+			}
+			return cells;
 		}
 
 		public boolean isEmpty() {
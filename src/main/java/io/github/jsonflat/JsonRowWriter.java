@@ -0,0 +1,291 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.model.CompositeValue;
+import io.github.jsonflat.model.JsonValue;
+import io.github.jsonflat.model.Value;
+import io.github.jsonflat.utils.LogPrefix;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes rows of cells as JSON lines directly to {@link JsonGenerator} without building ObjectNode rows.
+ * Output is the same as of {@link JsonNode#toString()} of rows built by {@link FlatTransformer#transform(JsonNode)}:
+ * empty cells are omitted, rows with empty required cells are skipped,
+ * a repeated column name keeps the first position and the last value.
+ * Cells with interned names (see {@link io.github.jsonflat.schema.NameTable}) are placed by id
+ * and their names are written from encoded field names cached by id.
+ * Fields of log prefix can be written as first columns of every row, see {@link #setPrefix(LogPrefix)}.
+ * Binary generators (see {@link RowFormat}) are used without row separator.
+ * Not thread safe.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class JsonRowWriter implements RowWriter, Flushable, Closeable {
+	private final JsonGenerator generator;
+	private final String rowSeparator;
+	private final boolean binary;   //numbers are written natively, not as text
+	//buffers of current row, reused between rows
+	private final List<String> names = new ArrayList<>();
+	private final List<JsonNode> values = new ArrayList<>();
+	private final Map<String, Integer> positions = new HashMap<>(); //positions of cells without id
+	private int[] ids = new int[16];                //ids of names of current row, -1 if name is not interned
+	private int[] idPositions = new int[64];        //positions of cells by id, valid if stamp is the current row
+	private int[] idStamps = new int[64];
+	private int stamp;
+	private SerializableString[] fieldNames = new SerializableString[64]; //encoded names by id
+	private List<String> prefixNames = Collections.emptyList();
+	private LogPrefix prefix = LogPrefix.EMPTY;
+	private char[] chars = new char[64]; //buffer of prefix field
+
+	/**
+	 * @param generator target generator, rows are separated by system line separator
+	 */
+	public JsonRowWriter(JsonGenerator generator) {
+		this(generator, System.lineSeparator());
+	}
+
+	/**
+	 * @param generator    target generator
+	 * @param rowSeparator raw text written after every row, null if rows are not separated
+	 */
+	public JsonRowWriter(JsonGenerator generator, String rowSeparator) {
+		this.generator = generator;
+		this.rowSeparator = rowSeparator;
+		this.binary = generator.canWriteBinaryNatively();
+		if (rowSeparator != null) generator.setRootValueSeparator(null);
+	}
+
+	public JsonGenerator getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * @param names names of columns for fields of log prefix, they should differ from names of other columns
+	 */
+	public void setPrefixNames(List<String> names) {
+		this.prefixNames = names;
+	}
+
+	/**
+	 * Sets log prefix of the document of next rows. Its fields are written as first columns named by
+	 * {@link #setPrefixNames(List)}, missing fields are omitted
+	 * @param prefix log prefix of document
+	 */
+	public void setPrefix(LogPrefix prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Writes row of cells
+	 * @param row cells of row
+	 * @return false if row is skipped because of empty required cell
+	 */
+	public boolean write(List<Cell> row) throws IOException {
+		names.clear();
+		values.clear();
+		positions.clear();
+		if (++stamp == 0) { //overflow, forget stamps of previous rows
+			Arrays.fill(idStamps, 0);
+			stamp = 1;
+		}
+		for (Cell cell : row) {
+			if (!collect(cell)) return false;
+		}
+		generator.writeStartObject();
+		writePrefix();
+		for (int i = 0; i < names.size(); i++) {
+			if (ids[i] < 0 || names.get(i) == null) generator.writeFieldName(names.get(i));
+			else generator.writeFieldName(fieldName(ids[i], names.get(i)));
+			writeValue(values.get(i));
+		}
+		generator.writeEndObject();
+		if (rowSeparator != null) generator.writeRaw(rowSeparator);
+		return true;
+	}
+
+	/**
+	 * Writes row built by {@link FlatTransformer#transform(JsonNode)}, fields of log prefix are written first
+	 * @param row flat json object
+	 */
+	public void write(JsonNode row) throws IOException {
+		generator.writeStartObject();
+		writePrefix();
+		Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			generator.writeFieldName(field.getKey());
+			writeValue(field.getValue());
+		}
+		generator.writeEndObject();
+		if (rowSeparator != null) generator.writeRaw(rowSeparator);
+	}
+
+	/**
+	 * Writes all rows of iterator, see {@link FlatTransformer#rows(JsonNode)}
+	 * @return number of written rows
+	 */
+	@Override
+	public int write(Iterator<List<Cell>> rows) throws IOException {
+		int count = 0;
+		while (rows.hasNext()) {
+			if (write(rows.next())) count++;
+		}
+		return count;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		generator.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+
+	private void writePrefix() throws IOException {
+		int size = Math.min(prefixNames.size(), prefix.size());
+		for (int i = 0; i < size; i++) {
+			if (chars.length < prefix.length(i)) chars = new char[Math.max(prefix.length(i), chars.length * 2)];
+			generator.writeFieldName(prefixNames.get(i));
+			generator.writeString(chars, 0, prefix.getChars(i, chars));
+		}
+	}
+
+	private boolean collect(Cell cell) {
+		Value value = cell.getValue();
+		if (value instanceof CompositeValue) {
+			for (Cell c : (CompositeValue) value) {
+				if (!collect(c)) return false;
+			}
+			return true;
+		}
+		if (value.isEmpty()) {
+			return !value.isRequired();
+		}
+		JsonNode node = ((JsonValue) value).getValue();
+		int id = cell.getId();
+		if (id < 0) {
+			Integer position = positions.putIfAbsent(cell.getName(), names.size());
+			if (position == null) {
+				add(id, cell.getName(), node);
+			} else {
+				values.set(position, node);
+			}
+		} else {
+			if (id >= idStamps.length) {
+				int length = Math.max(id + 1, idStamps.length * 2);
+				idStamps = Arrays.copyOf(idStamps, length);
+				idPositions = Arrays.copyOf(idPositions, length);
+			}
+			if (idStamps[id] == stamp) {
+				values.set(idPositions[id], node);
+			} else {
+				idStamps[id] = stamp;
+				idPositions[id] = names.size();
+				add(id, cell.getName(), node);
+			}
+		}
+		return true;
+	}
+
+	private void add(int id, String name, JsonNode node) {
+		if (names.size() == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+		ids[names.size()] = id;
+		names.add(name);
+		values.add(node);
+	}
+
+	/**
+	 * @return encoded name cached by id, it is replaced if id is used by other name table
+	 */
+	private SerializableString fieldName(int id, String name) {
+		if (id >= fieldNames.length) fieldNames = Arrays.copyOf(fieldNames, Math.max(id + 1, fieldNames.length * 2));
+		SerializableString fieldName = fieldNames[id];
+		if (fieldName == null || fieldName.getValue() != name) { //names of table are interned
+			fieldName = new SerializedString(name);
+			fieldNames[id] = fieldName;
+		}
+		return fieldName;
+	}
+
+	private void writeValue(JsonNode node) throws IOException {
+		switch (node.getNodeType()) {
+			case OBJECT:
+				generator.writeStartObject();
+				Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+				while (fields.hasNext()) {
+					Map.Entry<String, JsonNode> field = fields.next();
+					generator.writeFieldName(field.getKey());
+					writeValue(field.getValue());
+				}
+				generator.writeEndObject();
+				break;
+			case ARRAY:
+				generator.writeStartArray();
+				for (JsonNode element : node) {
+					writeValue(element);
+				}
+				generator.writeEndArray();
+				break;
+			case STRING:
+				generator.writeString(node.textValue());
+				break;
+			case NUMBER:
+				switch (node.numberType()) {
+					case INT:
+						generator.writeNumber(node.intValue());
+						break;
+					case LONG:
+						generator.writeNumber(node.longValue());
+						break;
+					case BIG_INTEGER:
+						generator.writeNumber(node.bigIntegerValue());
+						break;
+					case BIG_DECIMAL:
+						generator.writeNumber(node.decimalValue());
+						break;
+					case FLOAT:
+						if (binary) generator.writeNumber(node.floatValue());
+						else generator.writeNumber(node.asText()); //as JsonNode#toString does
+						break;
+					default:
+						if (binary) generator.writeNumber(node.doubleValue());
+						else generator.writeNumber(node.asText()); //as JsonNode#toString does
+				}
+				break;
+			case BOOLEAN:
+				generator.writeBoolean(node.booleanValue());
+				break;
+			case NULL:
+				generator.writeNull();
+				break;
+			case BINARY:
+				generator.writeBinary(node.binaryValue());
+				break;
+			default:
+				generator.writeRawValue(node.toString());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output format of rows written by {@link JsonRowWriter}.
+ * JSON rows are separated by line separator, binary rows are written as a sequence of root values.
+ * Smile output starts with a header and uses back-references to field names already written,
+ * so repeated column names cost one or two bytes per row.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public enum RowFormat {
+	JSON(Transformer.MAPPER.getFactory()),
+	SMILE(new SmileFactory()
+			.configure(SmileGenerator.Feature.WRITE_HEADER, true)
+			.configure(SmileGenerator.Feature.CHECK_SHARED_NAMES, true)),
+	CBOR(new CBORFactory());
+
+	@Getter
+	private final JsonFactory factory; //also reads rows of the format
+
+	RowFormat(JsonFactory factory) {
+		this.factory = factory;
+	}
+
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * @param output target stream, it is not closed by the generator
+	 * @return generator of the format, JSON is written in UTF-8
+	 */
+	public JsonGenerator createGenerator(OutputStream output) throws IOException {
+		JsonGenerator generator = factory.createGenerator(output, JsonEncoding.UTF8);
+		return generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	/**
+	 * @param output target stream, it is not closed by the writer
+	 * @return writer of rows in the format
+	 */
+	public JsonRowWriter createWriter(OutputStream output) throws IOException {
+		return new JsonRowWriter(createGenerator(output), isBinary() ? null : System.lineSeparator());
+	}
+}
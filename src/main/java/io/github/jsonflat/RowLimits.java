@@ -0,0 +1,168 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.model.CompositeValue;
+import io.github.jsonflat.model.JsonValue;
+import io.github.jsonflat.model.Value;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Limits of rows produced by one document. Sibling arrays exploded to rows multiply,
+ * so a single document can produce millions of rows. Rows are counted and their size is estimated
+ * while they are produced, rows with empty required cells are counted too.
+ * A document over the limits is truncated, skipped or passed to the sink of rejected documents,
+ * every breach is reported to {@link TransformMetrics#limitExceeded()}.
+ * Skipped and rejected documents need a buffer of rows up to the limits, truncated documents are streamed.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@Getter
+@Builder
+public class RowLimits implements Serializable {
+	public static final RowLimits NONE = RowLimits.builder().build();
+
+	@Builder.Default
+	private final long maxRows = 0;  //max number of rows of document, 0 if not limited
+	@Builder.Default
+	private final long maxBytes = 0; //max estimated size of rows of document, 0 if not limited
+	@Builder.Default
+	private final Policy policy = Policy.TRUNCATE;
+	private final transient RowSink rejected; //receiver of documents over limits with REJECT policy
+
+	public enum Policy {
+		TRUNCATE,   //rows within limits are kept
+		SKIP,       //document is skipped
+		REJECT      //document is skipped and passed to rejected sink
+	}
+
+	public boolean isLimited() {
+		return maxRows > 0 || maxBytes > 0;
+	}
+
+	/**
+	 * @param document source document of rows
+	 * @param rows     rows of document, see {@link FlatTransformer#rows(JsonNode)}
+	 * @param metrics  listener of breaches
+	 * @return rows within limits, a row is valid till the next call of iterator
+	 */
+	public Iterator<List<Cell>> apply(JsonNode document, Iterator<List<Cell>> rows, TransformMetrics metrics) throws IOException {
+		if (!isLimited()) return rows;
+		if (policy == Policy.TRUNCATE) return new Truncated(rows, metrics);
+		List<List<Cell>> buffer = new ArrayList<>();
+		long bytes = 0;
+		while (rows.hasNext()) {
+			List<Cell> row = rows.next();
+			bytes += estimate(row);
+			if (isExceeded(buffer.size() + 1, bytes)) {
+				metrics.limitExceeded();
+				if (policy == Policy.REJECT && rejected != null) rejected.accept(document);
+				return Collections.emptyIterator();
+			}
+			buffer.add(new ArrayList<>(row)); //rows of iterator are reused
+		}
+		return buffer.iterator();
+	}
+
+	private boolean isExceeded(long rows, long bytes) {
+		return (maxRows > 0 && rows > maxRows) || (maxBytes > 0 && bytes > maxBytes);
+	}
+
+	/**
+	 * @return estimated size of row in output: names and text of values
+	 */
+	static long estimate(List<Cell> row) {
+		long bytes = 0;
+		for (Cell cell : row) {
+			bytes += estimate(cell);
+		}
+		return bytes;
+	}
+
+	private static long estimate(Cell cell) {
+		Value value = cell.getValue();
+		if (value instanceof CompositeValue) {
+			long bytes = 0;
+			for (Cell c : (CompositeValue) value) {
+				bytes += estimate(c);
+			}
+			return bytes;
+		}
+		if (value.isEmpty()) return 0;
+		return (cell.getName() == null ? 0 : cell.getName().length()) + estimate(((JsonValue) value).getValue());
+	}
+
+	private static long estimate(JsonNode node) {
+		if (node.isTextual()) return node.textValue().length() + 2;
+		if (node.isContainerNode()) {
+			long bytes = 2;
+			for (JsonNode element : node) {
+				bytes += estimate(element) + 1;
+			}
+			return bytes;
+		}
+		return 8;
+	}
+
+	/**
+	 * Rows till the first one over limits
+	 */
+	private class Truncated implements Iterator<List<Cell>> {
+		private final Iterator<List<Cell>> rows;
+		private final TransformMetrics metrics;
+		private long count;
+		private long bytes;
+		private List<Cell> next;
+		private boolean end;
+
+		Truncated(Iterator<List<Cell>> rows, TransformMetrics metrics) {
+			this.rows = rows;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !end && rows.hasNext()) {
+				List<Cell> row = rows.next();
+				bytes += estimate(row);
+				if (isExceeded(++count, bytes)) {
+					end = true;
+					metrics.limitExceeded();
+				} else {
+					next = row;
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public List<Cell> next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			List<Cell> result = next;
+			next = null;
+			return result;
+		}
+	}
+}
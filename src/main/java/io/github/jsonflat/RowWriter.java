@@ -0,0 +1,35 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.model.Cell;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writer of rows of cells produced by {@link FlatTransformer#rows(com.fasterxml.jackson.databind.JsonNode)},
+ * see {@link JsonRowWriter} and {@link CsvRowWriter}
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+@FunctionalInterface
+public interface RowWriter {
+	/**
+	 * Writes all rows of iterator, rows with empty required cells are skipped
+	 * @return number of written rows
+	 */
+	int write(Iterator<List<Cell>> rows) throws IOException;
+}
@@ -0,0 +1,455 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.schema.ExecutionPlan;
+import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.schema.filter.Exist;
+import io.github.jsonflat.schema.filter.Filter;
+import io.github.jsonflat.schema.filter.NotExist;
+import io.github.jsonflat.utils.JsonProjection;
+import io.github.jsonflat.utils.SimpleJsonPath;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Transforms json documents directly from {@link JsonParser}.
+ * Only the parts of document referenced by execution plan are read into nodes,
+ * other subtrees are skipped by the parser. The result is the same as of {@link FlatTransformer}.
+ * If the plan or the filter uses paths not supported by {@link SimpleJsonPath}, whole documents are read.
+ * Converters of the plan and the filter are prepared once when the transformer is built, see {@link Filter#prepare()}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class StreamingTransformer implements Serializable {
+	private final FlatTransformer transformer;
+	private final Filter filter;
+	private final JsonProjection projection; //null if whole document is needed
+	private transient TransformMetrics metrics = TransformMetrics.NONE;
+	private RowLimits limits = RowLimits.NONE;
+	private transient ForkJoinPool pool;   //pool of parallel transformation of top-level arrays, null if disabled
+	private int threshold;                 //max number of array elements per parallel task
+
+	public StreamingTransformer(Schema schema) {
+		this(ExecutionPlan.compile(schema), schema.getFilter());
+	}
+
+	public StreamingTransformer(ExecutionPlan plan, Filter filter) {
+		this.transformer = new FlatTransformer(plan);
+		this.filter = filter;
+		filter.prepare();
+		this.projection = project(plan, filter);
+	}
+
+	public FlatTransformer getFlatTransformer() {
+		return transformer;
+	}
+
+	public ExecutionPlan getPlan() {
+		return transformer.getPlan();
+	}
+
+	public TransformMetrics getMetrics() {
+		return metrics == null ? TransformMetrics.NONE : metrics; //null after deserialization
+	}
+
+	/**
+	 * @param metrics listener of parsing and transformation of every document
+	 */
+	public void setMetrics(TransformMetrics metrics) {
+		this.metrics = metrics == null ? TransformMetrics.NONE : metrics;
+	}
+
+	public RowLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * @param limits limits of rows of every document, rows are not limited by default
+	 */
+	public void setLimits(RowLimits limits) {
+		this.limits = limits == null ? RowLimits.NONE : limits;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Enables parallel transformation of elements of top-level arrays by {@link #transform(JsonParser)}.
+	 * Elements are parsed sequentially, then an array of at least threshold elements is split into tasks
+	 * of the pool, rows keep the order of elements. Metrics, converters and sink of rejected documents
+	 * are called concurrently
+	 * @param pool      pool of tasks, e.g. {@link ForkJoinPool#commonPool()}, null to disable
+	 * @param threshold max number of elements transformed by one task, longer ranges are split in halves;
+	 *                  arrays of fewer elements are transformed by caller
+	 */
+	public void setParallelism(ForkJoinPool pool, int threshold) {
+		if (pool != null && threshold <= 0) throw new IllegalArgumentException("threshold should be positive: " + threshold);
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Rows of document within {@link #getLimits()}, filter of schema is not applied
+	 * @param document json to transformation
+	 * @return iterator of rows, a row is valid till the next call of iterator
+	 */
+	public Iterator<List<Cell>> rows(JsonNode document) throws IOException {
+		return limits.apply(document, transformer.rows(document), getMetrics());
+	}
+
+	/**
+	 * Reads next json value from parser and transforms it to list of flat Json documents.
+	 * Elements of top-level array are transformed one by one or in parallel, see {@link #setParallelism(ForkJoinPool, int)}
+	 * @param parser parser pointing to the start of value or before it
+	 * @return list of flat Json documents, empty if there is no value in parser
+	 */
+	public List<JsonNode> transform(JsonParser parser) throws IOException {
+		JsonToken token = parser.getCurrentToken();
+		if (token == null) token = nextToken(parser);
+		if (token == null) return Collections.emptyList();
+		if (token == JsonToken.START_ARRAY) {
+			ForkJoinPool pool = this.pool;
+			if (pool != null) {
+				List<JsonNode> elements = new ArrayList<>();
+				while (nextToken(parser) != JsonToken.END_ARRAY) {
+					elements.add(read(parser));
+				}
+				if (elements.size() >= threshold) return transform(pool, elements);
+				List<JsonNode> result = new ArrayList<>();
+				for (JsonNode element : elements) {
+					result.addAll(transform(element));
+				}
+				return result;
+			}
+			List<JsonNode> result = new ArrayList<>();
+			while (nextToken(parser) != JsonToken.END_ARRAY) {
+				result.addAll(transform(read(parser)));
+			}
+			return result;
+		}
+		return transform(read(parser));
+	}
+
+	private List<JsonNode> transform(ForkJoinPool pool, List<JsonNode> elements) throws IOException {
+		try {
+			return pool.invoke(new ElementsTask(elements, 0, elements.size()));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Transforms range of array elements, ranges longer than threshold are split in halves
+	 */
+	private class ElementsTask extends RecursiveTask<List<JsonNode>> {
+		private final List<JsonNode> elements;
+		private final int from;
+		private final int to;
+
+		ElementsTask(List<JsonNode> elements, int from, int to) {
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<JsonNode> compute() {
+			if (to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				ElementsTask right = new ElementsTask(elements, middle, to);
+				right.fork();
+				List<JsonNode> result = new ElementsTask(elements, from, middle).compute();
+				result.addAll(right.join());
+				return result;
+			}
+			List<JsonNode> result = new ArrayList<>();
+			try {
+				for (int i = from; i < to; i++) {
+					result.addAll(transform(elements.get(i)));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Reads next json value from parser and writes its rows directly to writer.
+	 * Elements of top-level array are read before writing, so nothing is written if the value is malformed
+	 * @param parser parser pointing to the start of value or before it
+	 * @param writer target of rows
+	 */
+	public void writeRows(JsonParser parser, RowWriter writer) throws IOException {
+		JsonToken token = parser.getCurrentToken();
+		if (token == null) token = nextToken(parser);
+		if (token == null) return;
+		if (token == JsonToken.START_ARRAY) {
+			List<JsonNode> elements = new ArrayList<>();
+			while (nextToken(parser) != JsonToken.END_ARRAY) {
+				elements.add(read(parser));
+			}
+			for (JsonNode element : elements) {
+				writeRows(element, writer);
+			}
+		} else {
+			writeRows(read(parser), writer);
+		}
+	}
+
+	/**
+	 * Transforms json document and writes its rows directly to writer
+	 * @param document json to transformation
+	 * @param writer target of rows
+	 */
+	public void writeRows(JsonNode document, RowWriter writer) throws IOException {
+		if (document == null) return;
+		TransformMetrics metrics = getMetrics();
+		if (!filter.apply(document)) {
+			metrics.filtered();
+			return;
+		}
+		long start = System.nanoTime();
+		int rows = writer.write(rows(document));
+		metrics.transformed(rows, System.nanoTime() - start);
+	}
+
+	/**
+	 * Transforms all json values from parser and passes rows to sink as soon as they are produced.
+	 * Elements of top-level arrays are read and transformed one by one,
+	 * so only one element and one row are kept in memory (more rows if limits skip or reject documents)
+	 * @param parser parser pointing to the start of first value or before it
+	 * @param sink receiver of flat Json documents
+	 */
+	public void transform(JsonParser parser, RowSink sink) throws IOException {
+		Documents documents = new Documents(parser);
+		Iterator<JsonNode> rows;
+		while ((rows = documents.next()) != null) {
+			while (rows.hasNext()) {
+				sink.accept(rows.next());
+			}
+		}
+	}
+
+	/**
+	 * Lazy version of {@link #transform(JsonParser, RowSink)}, values are read from parser on demand.
+	 * IOException of parser is thrown as {@link UncheckedIOException}
+	 * @param parser parser pointing to the start of first value or before it
+	 * @return iterator of flat Json documents
+	 */
+	public Iterator<JsonNode> iterator(JsonParser parser) {
+		Documents documents = new Documents(parser);
+		return new Iterator<JsonNode>() {
+			private Iterator<JsonNode> rows = Collections.emptyIterator();
+			private boolean end;
+
+			@Override
+			public boolean hasNext() {
+				while (!rows.hasNext() && !end) {
+					try {
+						Iterator<JsonNode> next = documents.next();
+						if (next == null) {
+							end = true;
+						} else {
+							rows = next;
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return rows.hasNext();
+			}
+
+			@Override
+			public JsonNode next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return rows.next();
+			}
+		};
+	}
+
+	/**
+	 * Reads next json value from parser, skipping the parts not used by transformation
+	 * @param parser parser pointing to the start of value or before it
+	 * @return projected document, null if there is no value in parser
+	 */
+	public JsonNode read(JsonParser parser) throws IOException {
+		long start = System.nanoTime();
+		JsonNode document;
+		try {
+			document = projection == null ? Transformer.MAPPER.readTree(parser) : projection.read(parser, Transformer.MAPPER);
+		} catch (JsonParseException e) {
+			getMetrics().parseFailed();
+			throw e;
+		}
+		if (document != null) getMetrics().parsed(System.nanoTime() - start);
+		return document;
+	}
+
+	private JsonToken nextToken(JsonParser parser) throws IOException {
+		try {
+			return parser.nextToken();
+		} catch (JsonParseException e) {
+			getMetrics().parseFailed();
+			throw e;
+		}
+	}
+
+	private List<JsonNode> transform(JsonNode document) throws IOException {
+		if (document == null) return Collections.emptyList();
+		TransformMetrics metrics = getMetrics();
+		if (filter.apply(document)) {
+			long start = System.nanoTime();
+			List<JsonNode> rows = FlatTransformer.transform(rows(document));
+			metrics.transformed(rows.size(), System.nanoTime() - start);
+			return rows;
+		}
+		metrics.filtered();
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Lazy version of {@link #transform(JsonNode)}, flat Json documents are built on demand.
+	 * Transformation is reported to metrics when all rows are read
+	 */
+	private Iterator<JsonNode> iterator(JsonNode document) throws IOException {
+		if (document == null) return Collections.emptyIterator();
+		TransformMetrics metrics = getMetrics();
+		if (!filter.apply(document)) {
+			metrics.filtered();
+			return Collections.emptyIterator();
+		}
+		long start = System.nanoTime();
+		Iterator<List<Cell>> rows = rows(document);
+		long elapsed = System.nanoTime() - start;
+		return new Iterator<JsonNode>() {
+			private JsonNode next;
+			private int count;
+			private long nanos = elapsed;
+			private boolean end;
+
+			@Override
+			public boolean hasNext() {
+				if (next == null && !end) {
+					long start = System.nanoTime();
+					while (next == null && rows.hasNext()) {
+						next = FlatTransformer.toNode(rows.next());
+					}
+					nanos += System.nanoTime() - start;
+					if (next == null) {
+						end = true;
+						metrics.transformed(count, nanos);
+					} else {
+						count++;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public JsonNode next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				JsonNode result = next;
+				next = null;
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Sequence of documents in parser: root values and elements of root arrays
+	 */
+	private class Documents {
+		private final JsonParser parser;
+		private boolean started;
+		private boolean inArray;
+
+		Documents(JsonParser parser) {
+			this.parser = parser;
+		}
+
+		/**
+		 * @return lazy rows of next document, null at the end of input
+		 */
+		Iterator<JsonNode> next() throws IOException {
+			while (true) {
+				JsonToken token = started || parser.getCurrentToken() == null ? nextToken(parser) : parser.getCurrentToken();
+				started = true;
+				if (token == null) return null;
+				if (inArray) {
+					if (token == JsonToken.END_ARRAY) {
+						inArray = false;
+						continue;
+					}
+				} else if (token == JsonToken.START_ARRAY) {
+					inArray = true;
+					continue;
+				}
+				return iterator(read(parser));
+			}
+		}
+	}
+
+	private static JsonProjection project(ExecutionPlan plan, Filter filter) {
+		JsonProjection root = new JsonProjection();
+		if (filter != Filter.DEFAULT) {
+			String path;
+			if (filter instanceof Exist) {
+				path = ((Exist) filter).getPath();
+			} else if (filter instanceof NotExist) {
+				path = ((NotExist) filter).getPath();
+			} else {
+				return null;
+			}
+			SimpleJsonPath simplePath = SimpleJsonPath.compile(path);
+			if (simplePath == null) return null;
+			root.add(simplePath).all();
+		}
+		for (ExecutionPlan.Column column : plan.getColumns()) {
+			if (!project(root, column)) return null;
+		}
+		return root;
+	}
+
+	private static boolean project(JsonProjection node, ExecutionPlan.Column column) {
+		if (column.getPath() == null) return true;
+		if (column.getSimplePath() == null) return false;
+		JsonProjection columnNode = node.add(column.getSimplePath());
+		if (column.isLeaf()) {
+			columnNode.all();
+			return true;
+		}
+		columnNode.value();
+		for (ExecutionPlan.Column subColumn : column.getColumns()) {
+			if (!project(columnNode, subColumn)) return false;
+		}
+		return true;
+	}
+}
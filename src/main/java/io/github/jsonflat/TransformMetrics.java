@@ -0,0 +1,66 @@
+package io.github.jsonflat;
+
+/**
+ * Listener of transformation events, see {@link Transformer#setMetrics(TransformMetrics)}.
+ * Methods are called for every document, possibly from several threads, so implementations should be cheap
+ * and thread safe. All methods do nothing by default.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public interface TransformMetrics {
+	TransformMetrics NONE = new TransformMetrics() {
+	};
+
+	/**
+	 * Document is parsed
+	 * @param nanos time of parsing
+	 */
+	default void parsed(long nanos) {
+	}
+
+	/**
+	 * Document is malformed and skipped
+	 */
+	default void parseFailed() {
+	}
+
+	/**
+	 * Document is rejected by filter of schema
+	 */
+	default void filtered() {
+	}
+
+	/**
+	 * Document is transformed. If rows are written by {@link JsonRowWriter}, writing is included
+	 * @param rows number of produced rows
+	 * @param nanos time of transformation
+	 */
+	default void transformed(int rows, long nanos) {
+	}
+
+	/**
+	 * Rows of document exceed {@link RowLimits}, the document is truncated, skipped or rejected
+	 */
+	default void limitExceeded() {
+	}
+
+	/**
+	 * Rows are written to output by caller
+	 * @param nanos time of writing
+	 */
+	default void written(long nanos) {
+	}
+}
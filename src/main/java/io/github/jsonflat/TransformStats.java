@@ -0,0 +1,122 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.Histogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects counters and latency histograms of transformation, used by "-stats" parameter of {@link App}.
+ * Thread safe, counters are striped to keep overhead of concurrent transformation low.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class TransformStats implements TransformMetrics {
+	private final long start = System.nanoTime();
+	private final LongAdder parseFailures = new LongAdder();
+	private final LongAdder filtered = new LongAdder();
+	private final LongAdder limitExceeded = new LongAdder();
+	private final Histogram parseNanos = new Histogram();
+	private final Histogram transformNanos = new Histogram();
+	private final Histogram writeNanos = new Histogram();
+	private final Histogram rowsPerDocument = new Histogram();
+
+	@Override
+	public void parsed(long nanos) {
+		parseNanos.record(nanos);
+	}
+
+	@Override
+	public void parseFailed() {
+		parseFailures.increment();
+	}
+
+	@Override
+	public void filtered() {
+		filtered.increment();
+	}
+
+	@Override
+	public void transformed(int rows, long nanos) {
+		rowsPerDocument.record(rows);
+		transformNanos.record(nanos);
+	}
+
+	@Override
+	public void limitExceeded() {
+		limitExceeded.increment();
+	}
+
+	@Override
+	public void written(long nanos) {
+		writeNanos.record(nanos);
+	}
+
+	public long getDocuments() {
+		return parseNanos.getCount();
+	}
+
+	public long getParseFailures() {
+		return parseFailures.sum();
+	}
+
+	public long getFiltered() {
+		return filtered.sum();
+	}
+
+	public long getLimitExceeded() {
+		return limitExceeded.sum();
+	}
+
+	public long getRows() {
+		return rowsPerDocument.getSum();
+	}
+
+	public Histogram getRowsPerDocument() {
+		return rowsPerDocument;
+	}
+
+	/**
+	 * @return human readable summary of statistics since creation
+	 */
+	public String summary() {
+		double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+		StringBuilder result = new StringBuilder();
+		result.append(format("Documents: %d parsed, %d parse failures, %d filtered, %d over row limits%n",
+				getDocuments(), getParseFailures(), getFiltered(), getLimitExceeded()));
+		result.append(format("Rows: %d, per document: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+				getRows(), rowsPerDocument.getMean(), rowsPerDocument.getPercentile(0.5),
+				rowsPerDocument.getPercentile(0.9), rowsPerDocument.getPercentile(0.99), rowsPerDocument.getMax()));
+		result.append(format("Throughput: %.1f documents/s, %.1f rows/s, elapsed %.3f s%n",
+				getDocuments() / seconds, getRows() / seconds, seconds));
+		appendLatency(result, "Parse", parseNanos);
+		appendLatency(result, "Transform", transformNanos);
+		appendLatency(result, "Write", writeNanos);
+		return result.toString();
+	}
+
+	private static void appendLatency(StringBuilder result, String name, Histogram histogram) {
+		if (histogram.getCount() == 0) return;
+		result.append(format("%s: total %d ms, per call: mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us%n",
+				name, TimeUnit.NANOSECONDS.toMillis(histogram.getSum()), histogram.getMean() / 1e3,
+				histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3, histogram.getMax() / 1e3));
+	}
+
+	private static String format(String format, Object... args) {
+		return String.format(Locale.ROOT, format, args);
+	}
+}
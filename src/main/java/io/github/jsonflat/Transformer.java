@@ -1,5 +1,6 @@
 package io.github.jsonflat;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.Configuration;
@@ -8,13 +9,16 @@ import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import io.github.jsonflat.model.Cell;
 import io.github.jsonflat.schema.Schema;
 import io.github.jsonflat.utils.StringUtils;
 
-import java.io.IOException;
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 
@@ -40,43 +44,248 @@ public class Transformer implements Serializable {
 		initJsonPath();
 	}
 
-	private final FlatTransformer transformer;
 	private final Schema schema;
+	private volatile StreamingTransformer transformer;
+	private transient volatile TransformMetrics metrics = TransformMetrics.NONE;
+	private volatile RowLimits limits = RowLimits.NONE;
+	private transient volatile ForkJoinPool pool; //pool of parallel transformation of top-level arrays
+	private volatile int threshold;
 
 	public Transformer(Schema schema) {
 		this.schema = schema;
-		this.transformer = new FlatTransformer(schema.getColumns());
+		this.transformer = new StreamingTransformer(schema);
 	}
 
 	public Schema getSchema() {
 		return schema;
 	}
 
+	public TransformMetrics getMetrics() {
+		return metrics == null ? TransformMetrics.NONE : metrics; //null after deserialization
+	}
+
+	/**
+	 * Sets listener of parsing and transformation of every document, e.g. {@link TransformStats}.
+	 * Documents passed as {@link JsonNode} are not reported as parsed
+	 * @param metrics listener, null to disable
+	 */
+	public void setMetrics(TransformMetrics metrics) {
+		this.metrics = metrics == null ? TransformMetrics.NONE : metrics;
+		transformer.setMetrics(this.metrics);
+	}
+
+	public RowLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * Sets limits of rows of every document, breaches are reported to metrics
+	 * @param limits limits, null to disable
+	 */
+	public void setLimits(RowLimits limits) {
+		this.limits = limits == null ? RowLimits.NONE : limits;
+		transformer.setLimits(this.limits);
+	}
+
+	/**
+	 * Enables parallel transformation of elements of top-level arrays by {@link #transform(String)}
+	 * and {@link #transform(JsonParser)}, rows keep the order of elements.
+	 * A dedicated pool keeps the transformation from competing with tasks of the caller in the common pool
+	 * @param pool      pool of tasks, null to transform elements sequentially
+	 * @param threshold max number of elements transformed by one task, longer ranges are split in halves;
+	 *                  arrays of fewer elements are transformed by caller
+	 * @see StreamingTransformer#setParallelism(ForkJoinPool, int)
+	 */
+	public void setParallelism(ForkJoinPool pool, int threshold) {
+		transformer.setParallelism(pool, threshold);
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
 	public List<String> transform(String jsonData) throws IOException {
 		if (StringUtils.isBlank(jsonData)) return Collections.emptyList();
-		JsonNode json = MAPPER.readTree(jsonData);
-		if (json.isArray()) {
-			List<JsonNode> jsonNodes = new ArrayList<>(json.size());
-			json.forEach(jsonNodes::add);
-			return jsonNodes.stream()
-					.flatMap(j -> this.transform(j).stream())
-					.map(JsonNode::toString)
-					.collect(Collectors.toList());
-		} else {
-			return this.transform(json).stream()
+		try (JsonParser parser = MAPPER.getFactory().createParser(jsonData)) {
+			return this.transform(parser).stream()
 					.map(JsonNode::toString)
 					.collect(Collectors.toList());
 		}
 	}
 
+	/**
+	 * Reads next json value from parser and transforms it, skipping the parts of document not used by schema.
+	 * Elements of top-level array are transformed one by one
+	 * @param parser parser pointing to the start of value or before it
+	 * @return list of flat Json documents
+	 */
+	public List<JsonNode> transform(JsonParser parser) throws IOException {
+		return getStreamingTransformer().transform(parser);
+	}
+
+	/**
+	 * Reads next json value from parser and writes its rows directly to writer, see {@link #transform(JsonParser)}
+	 * @param parser parser pointing to the start of value or before it
+	 * @param writer target of rows
+	 */
+	public void writeRows(JsonParser parser, RowWriter writer) throws IOException {
+		getStreamingTransformer().writeRows(parser, writer);
+	}
+
+	/**
+	 * Transforms json document and writes its rows directly to writer
+	 * @param json json to transformation
+	 * @param writer target of rows
+	 */
+	public void writeRows(JsonNode json, RowWriter writer) throws IOException {
+		getStreamingTransformer().writeRows(json, writer);
+	}
+
+	/**
+	 * Transforms all json documents from reader and passes rows to sink as soon as they are produced.
+	 * Input may contain several root values (e.g. JSON lines), elements of top-level arrays are parsed one by one,
+	 * so memory is bounded by a single element. The reader is not closed
+	 * @param reader source of json documents
+	 * @param sink receiver of flat Json documents
+	 */
+	public void transform(Reader reader, RowSink sink) throws IOException {
+		try (JsonParser parser = createParser(MAPPER.getFactory().createParser(reader))) {
+			getStreamingTransformer().transform(parser, sink);
+		}
+	}
+
+	/**
+	 * Same as {@link #transform(Reader, RowSink)}, encoding is detected by jackson. The stream is not closed
+	 */
+	public void transform(InputStream input, RowSink sink) throws IOException {
+		try (JsonParser parser = createParser(MAPPER.getFactory().createParser(input))) {
+			getStreamingTransformer().transform(parser, sink);
+		}
+	}
+
+	/**
+	 * Transforms all json documents from reader and writes rows to output in the format, e.g. binary Smile or CBOR.
+	 * Input is read as by {@link #transform(Reader, RowSink)}, elements of top-level arrays are written as rows
+	 * of separate documents. Neither reader nor output is closed, output is flushed
+	 * @param reader source of json documents
+	 * @param output target of rows
+	 * @param format format of rows
+	 */
+	public void transform(Reader reader, OutputStream output, RowFormat format) throws IOException {
+		try (JsonParser parser = createParser(MAPPER.getFactory().createParser(reader))) {
+			transform(parser, output, format);
+		}
+	}
+
+	/**
+	 * Same as {@link #transform(Reader, OutputStream, RowFormat)}, encoding is detected by jackson
+	 */
+	public void transform(InputStream input, OutputStream output, RowFormat format) throws IOException {
+		try (JsonParser parser = createParser(MAPPER.getFactory().createParser(input))) {
+			transform(parser, output, format);
+		}
+	}
+
+	/**
+	 * Lazy stream of rows of all json documents from reader, see {@link #transform(Reader, RowSink)}.
+	 * IOException of parsing is thrown as {@link java.io.UncheckedIOException}.
+	 * The stream should be closed to release the parser, the reader is not closed
+	 * @param reader source of json documents
+	 * @return sequential stream of flat Json documents
+	 */
+	public Stream<JsonNode> transformStream(Reader reader) throws IOException {
+		return stream(createParser(MAPPER.getFactory().createParser(reader)));
+	}
+
+	/**
+	 * Same as {@link #transformStream(Reader)}, encoding is detected by jackson. The input stream is not closed
+	 */
+	public Stream<JsonNode> transformStream(InputStream input) throws IOException {
+		return stream(createParser(MAPPER.getFactory().createParser(input)));
+	}
+
 	public List<JsonNode> transform(JsonNode json) {
 		if (json == null) return Collections.emptyList();
 		if (schema.getFilter().apply(json)) {
-			return transformer.transform(json);
+			long start = System.nanoTime();
+			List<JsonNode> rows = FlatTransformer.transform(rows(json));
+			getMetrics().transformed(rows.size(), System.nanoTime() - start);
+			return rows;
 		}
+		getMetrics().filtered();
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Transforms json documents into a columnar batch, rows are appended directly to column vectors.
+	 * Columns follow {@link Schema#getResultNames()} as of the start of transformation
+	 * @param documents json documents, null documents are skipped
+	 * @return batch of rows of all documents
+	 */
+	public ColumnBatch transformBatch(Iterable<JsonNode> documents) {
+		ColumnBatch.Builder builder = new ColumnBatch.Builder(schema.getResultNames());
+		for (JsonNode json : documents) {
+			if (json == null) continue;
+			if (schema.getFilter().apply(json)) {
+				long start = System.nanoTime();
+				int rows = builder.append(rows(json));
+				getMetrics().transformed(rows, System.nanoTime() - start);
+			} else {
+				getMetrics().filtered();
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns transformer for actual execution plan.
+	 * The plan is recompiled if schema was modified (e.g. by {@link Schema#merge(Schema)})
+	 */
+	private StreamingTransformer getStreamingTransformer() {
+		StreamingTransformer t = transformer;
+		if (!t.getPlan().isActual(schema)) {
+			t = new StreamingTransformer(schema);
+			t.setMetrics(getMetrics());
+			t.setLimits(limits);
+			t.setParallelism(pool, threshold);
+			transformer = t;
+		}
+		return t;
+	}
+
+	/**
+	 * @return rows of document within limits, IOException of rejected sink is thrown as {@link UncheckedIOException}
+	 */
+	private Iterator<List<Cell>> rows(JsonNode json) {
+		try {
+			return getStreamingTransformer().rows(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void transform(JsonParser parser, OutputStream output, RowFormat format) throws IOException {
+		try (JsonRowWriter writer = format.createWriter(output)) {
+			while (parser.nextToken() != null) {
+				getStreamingTransformer().writeRows(parser, writer);
+			}
+		}
+	}
+
+	private Stream<JsonNode> stream(JsonParser parser) {
+		Iterator<JsonNode> rows = getStreamingTransformer().iterator(parser);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						parser.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	private static JsonParser createParser(JsonParser parser) {
+		return parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	}
+
 	private static void initJsonPath() {
 		Configuration.setDefaults(new Configuration.Defaults() {
 			private final JsonProvider jsonProvider = new JacksonJsonNodeJsonProvider();
@@ -27,9 +27,14 @@ import java.util.stream.Collectors;
 @lombok.Value
 @AllArgsConstructor
 public class Cell implements Serializable {
+	int id;         //id of name in NameTable of execution plan, -1 if name is not interned
 	String name;
 	Value value;
 
+	public Cell(String name, Value value) {
+		this(-1, name, value);
+	}
+
 	public boolean writeToNode(ObjectNode node) {
 		if (value instanceof CompositeValue) {
 			for (Cell nv : (CompositeValue) value) {
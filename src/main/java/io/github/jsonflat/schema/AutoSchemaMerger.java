@@ -0,0 +1,182 @@
+package io.github.jsonflat.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges automatically generated schemas of documents into a target schema,
+ * skipping generation and merge for documents of already merged shape.
+ * The shape of a document is identified by {@link #fingerprint(JsonNode)}: documents with equal fingerprints
+ * give equal schemas by {@link AutoSchemaFactory}. Merge never removes columns, so merge of already merged shape
+ * only sets group policies of its columns. For every merged shape the target columns and their groups are kept,
+ * the shape is merged again only if a later merge changed any of these groups.
+ * Merge methods should be called from a single thread, {@link #isKnown(long)} is thread safe.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class AutoSchemaMerger {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final char OBJECT = '{';
+	private static final char ARRAY = '[';
+	private static final char SCALAR = '#';
+
+	private final AutoSchemaFactory factory;
+	private final Map<Long, MergedShape> shapes = new ConcurrentHashMap<>();
+
+	public AutoSchemaMerger(AutoSchemaFactory factory) {
+		this.factory = factory;
+	}
+
+	public AutoSchemaFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Merges schema of document into target schema if it changes the target
+	 * @param target schema to merge into
+	 * @param document json document
+	 * @return true if schema of document was generated and merged
+	 */
+	public boolean merge(Schema target, JsonNode document) {
+		return merge(target, document, fingerprint(document), null);
+	}
+
+	/**
+	 * Merges schema of document into target schema if it changes the target.
+	 * Target schema should be changed only by this merger
+	 * @param target schema to merge into
+	 * @param document json document
+	 * @param fingerprint fingerprint of document
+	 * @param schema generated schema of document, null to generate it if needed
+	 * @return true if schema of document was merged
+	 */
+	public boolean merge(Schema target, JsonNode document, long fingerprint, Schema schema) {
+		MergedShape shape = shapes.get(fingerprint);
+		if (shape != null && shape.isMerged()) return false;
+		if (schema == null) schema = factory.generate(document);
+		target.merge(schema);
+		if (shape == null) {
+			shapes.put(fingerprint, new MergedShape(target.getColumns(), schema.getColumns()));
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if shape with fingerprint was merged before, its merge most likely can be skipped
+	 */
+	public boolean isKnown(long fingerprint) {
+		return shapes.containsKey(fingerprint);
+	}
+
+	/**
+	 * Structural fingerprint of document: hash of field names tree.
+	 * Values of primitive types are not distinguished, elements of arrays are counted once per distinct shape
+	 * @param document json document
+	 * @return 64-bit hash of document shape
+	 */
+	public static long fingerprint(JsonNode document) {
+		return shape(document);
+	}
+
+	private static long shape(JsonNode node) {
+		long hash = FNV_OFFSET;
+		if (node.isObject()) {
+			hash = hash(hash, OBJECT);
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				hash = hash(hash, field.getKey());
+				hash = hash(hash, shape(field.getValue()));
+			}
+		} else if (node.isArray()) {
+			//schema of array is defined by distinct shapes of its object elements in order of appearance
+			hash = hash(hash, ARRAY);
+			long[] shapes = new long[Math.min(node.size(), 4)];
+			int count = 0;
+			for (JsonNode element : node) {
+				long elementShape = element.isObject() ? shape(element) : SCALAR;
+				if (indexOf(shapes, count, elementShape) < 0) {
+					if (count == shapes.length) shapes = Arrays.copyOf(shapes, count * 2);
+					shapes[count++] = elementShape;
+					hash = hash(hash, elementShape);
+				}
+			}
+		} else {
+			hash = hash(hash, SCALAR);
+		}
+		return hash;
+	}
+
+	private static int indexOf(long[] values, int count, long value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) return i;
+		}
+		return -1;
+	}
+
+	private static long hash(long hash, char c) {
+		return (hash ^ c) * FNV_PRIME;
+	}
+
+	private static long hash(long hash, String s) {
+		hash = hash(hash, (char) s.length());
+		hash = hash(hash, (char) (s.length() >>> 16));
+		for (int i = 0; i < s.length(); i++) {
+			hash = hash(hash, s.charAt(i));
+		}
+		return hash;
+	}
+
+	private static long hash(long hash, long value) {
+		for (int i = 0; i < 4; i++) {
+			hash = hash(hash, (char) (value >>> (i * 16)));
+		}
+		return hash;
+	}
+
+	/**
+	 * Columns of target schema affected by merge of a shape and their groups after that merge
+	 */
+	private static class MergedShape {
+		private final List<Schema.Column> columns = new ArrayList<>();
+		private final List<Schema.GroupPolicy> groups = new ArrayList<>();
+
+		MergedShape(Collection<Schema.Column> target, Collection<Schema.Column> merged) {
+			bind(ColumnList.of(target), merged);
+		}
+
+		private void bind(ColumnList target, Collection<Schema.Column> merged) {
+			for (Schema.Column column : merged) {
+				Schema.Column targetColumn = target.get(column.getName());
+				if (targetColumn != null) {
+					columns.add(targetColumn);
+					groups.add(column.getGroup());
+					bind(ColumnList.of(targetColumn.getColumns()), column.getColumns());
+				}
+			}
+		}
+
+		boolean isMerged() {
+			for (int i = 0; i < columns.size(); i++) {
+				if (columns.get(i).getGroup() != groups.get(i)) return false;
+			}
+			return true;
+		}
+	}
+}
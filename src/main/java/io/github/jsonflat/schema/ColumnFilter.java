@@ -0,0 +1,190 @@
+package io.github.jsonflat.schema;
+
+import io.github.jsonflat.utils.GlobMatcher;
+import io.github.jsonflat.utils.StringUtils;
+
+import java.util.*;
+
+/**
+ * Column filters of {@link Schema#filterColumns(List)} compiled for a whole tree of columns.
+ * Literal prefixes of filters (text till the first wildcard) are indexed in a trie keyed by segments of names
+ * split by delimiter. Names of columns are walked in the trie level by level, so full names are never rescanned,
+ * and a subtree without filters below its node is accepted or rejected at once.
+ * Filters without wildcards are compared by hash set, filters "prefix*" are decided by the trie
+ * and only other wildcard filters are matched by {@link GlobMatcher}.
+ * With multi-char delimiter names are matched by {@link GlobMatcher} only.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+final class ColumnFilter {
+	private final Set<String> filters;  //filters as is, compared with full names of columns
+	private final Set<String> names;    //filters without wildcards
+	private final GlobMatcher globs;    //other filters, all filters if not indexed
+	private final String delimiter;
+	private final boolean indexed;
+	private final Node root = new Node();
+	private final Cursor rootCursor = new Cursor(root, false, false);
+
+	ColumnFilter(List<String> filters, String delimiter) {
+		this.filters = new HashSet<>(filters);
+		this.delimiter = delimiter;
+		this.indexed = delimiter != null && delimiter.length() == 1;
+		this.names = new HashSet<>();
+		List<String> globs = new ArrayList<>();
+		for (String filter : filters) {
+			String pattern = StringUtils.deDuplicateChars(filter, '*'); //blank filter is "", the same as StringUtils.match does
+			int wildcard = wildcard(pattern);
+			if (!indexed) {
+				globs.add(pattern);
+			} else if (wildcard < 0) {
+				names.add(pattern);
+				add(pattern).count++;
+			} else if (wildcard == pattern.length() - 1 && pattern.charAt(wildcard) == '*') {
+				String prefix = pattern.substring(0, wildcard);
+				add(prefix).prefixes.add(lastSegment(prefix));
+			} else {
+				String prefix = pattern.substring(0, wildcard);
+				add(prefix).globs.add(lastSegment(prefix));
+				globs.add(pattern);
+			}
+		}
+		this.globs = GlobMatcher.compile(globs);
+	}
+
+	/**
+	 * Position of column name in the trie
+	 */
+	static final class Cursor {
+		private final Node node;        //node of all segments of name, null if there are no filters below
+		private final boolean prefix;   //name and all names below it match a prefix filter
+		private final boolean glob;     //name or names below it can match a wildcard filter
+
+		private Cursor(Node node, boolean prefix, boolean glob) {
+			this.node = node;
+			this.prefix = prefix;
+			this.glob = glob;
+		}
+	}
+
+	/**
+	 * @return cursor of top level columns
+	 */
+	Cursor root() {
+		return rootCursor;
+	}
+
+	/**
+	 * @param parent     cursor of parent column
+	 * @param parentName full name of parent column
+	 * @param name       full name of column
+	 * @return cursor of column
+	 */
+	Cursor cursor(Cursor parent, String parentName, String name) {
+		if (!indexed) return rootCursor;
+		Node node = root;
+		boolean prefix = false;
+		boolean glob = false;
+		int position = 0;
+		if (StringUtils.isNotBlank(parentName) && name.startsWith(parentName) && name.startsWith(delimiter, parentName.length())) {
+			//continue from the parent node, names of parent segments are already checked
+			node = parent.node;
+			prefix = parent.prefix;
+			glob = parent.glob;
+			position = parentName.length() + delimiter.length();
+		}
+		while (node != null) {
+			prefix = prefix || startsWithAny(name, position, node.prefixes);
+			glob = glob || startsWithAny(name, position, node.globs);
+			int end = name.indexOf(delimiter, position);
+			node = node.children.get(end < 0 ? name.substring(position) : name.substring(position, end));
+			if (end < 0) break;
+			position = end + delimiter.length();
+		}
+		return new Cursor(node, prefix, glob);
+	}
+
+	/**
+	 * @return true if full name of column is equal to a filter, such column is kept without children
+	 */
+	boolean isExact(String name) {
+		return filters.contains(name);
+	}
+
+	/**
+	 * @return true if full name of leaf column matches any filter
+	 */
+	boolean matches(Cursor cursor, String name) {
+		if (!indexed) return names.contains(name) || globs.matches(name);
+		return names.contains(name) || cursor.prefix || (cursor.glob && globs.matches(name));
+	}
+
+	/**
+	 * @return true if all names below cursor match a filter and are not equal to any filter, name of cursor itself is not checked
+	 */
+	boolean acceptsAll(Cursor cursor) {
+		return indexed && cursor.prefix && (cursor.node == null || cursor.node.count == 0);
+	}
+
+	/**
+	 * @return true if no name below cursor matches a filter, name of cursor itself is not checked
+	 */
+	boolean rejectsAll(Cursor cursor) {
+		return indexed && !cursor.prefix && !cursor.glob && (cursor.node == null || cursor.node.count == 0);
+	}
+
+	/**
+	 * Adds path of all segments of literal prefix except the last one
+	 * @return node of the last segment
+	 */
+	private Node add(String prefix) {
+		Node node = root;
+		node.count++;
+		int position = 0;
+		int end;
+		while ((end = prefix.indexOf(delimiter, position)) >= 0) {
+			node = node.children.computeIfAbsent(prefix.substring(position, end), k -> new Node());
+			node.count++;
+			position = end + delimiter.length();
+		}
+		return node;
+	}
+
+	private String lastSegment(String prefix) {
+		int end = prefix.lastIndexOf(delimiter);
+		return end < 0 ? prefix : prefix.substring(end + delimiter.length());
+	}
+
+	private static boolean startsWithAny(String name, int position, List<String> prefixes) {
+		for (String prefix : prefixes) {
+			if (name.startsWith(prefix, position)) return true;
+		}
+		return false;
+	}
+
+	private static int wildcard(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if (pattern.charAt(i) == '*' || pattern.charAt(i) == '?') return i;
+		}
+		return -1;
+	}
+
+	private static class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private final List<String> prefixes = new ArrayList<>(); //last segments of "prefix*" filters
+		private final List<String> globs = new ArrayList<>();    //last segments of literal prefixes of wildcard filters
+		private int count;                                       //number of filters at this node and below
+	}
+}
@@ -0,0 +1,117 @@
+package io.github.jsonflat.schema;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * List of child columns with index by name.
+ * Keeps insertion order and duplicates, {@link #get(String)} returns the first column with the name.
+ * The index is not updated if name of a column is changed after adding.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+class ColumnList extends AbstractList<Schema.Column> implements RandomAccess, Serializable {
+	private final ArrayList<Schema.Column> columns;
+	private transient Map<String, Schema.Column> index; //first column by name, null if should be rebuilt
+	private transient boolean duplicates;               //there are columns with equal names
+
+	ColumnList() {
+		this.columns = new ArrayList<>();
+	}
+
+	ColumnList(Collection<Schema.Column> columns) {
+		this.columns = new ArrayList<>(columns);
+	}
+
+	/**
+	 * @return the same list if columns is ColumnList or new list with columns
+	 */
+	static ColumnList of(Collection<Schema.Column> columns) {
+		if (columns instanceof ColumnList) return (ColumnList) columns;
+		return columns == null ? new ColumnList() : new ColumnList(columns);
+	}
+
+	/**
+	 * @param name name of column
+	 * @return first column with the name, null if there is no such column
+	 */
+	Schema.Column get(String name) {
+		return index().get(name);
+	}
+
+	/**
+	 * @return true if some columns have equal names
+	 */
+	boolean hasDuplicates() {
+		index();
+		return duplicates;
+	}
+
+	@Override
+	public Schema.Column get(int i) {
+		return columns.get(i);
+	}
+
+	@Override
+	public int size() {
+		return columns.size();
+	}
+
+	@Override
+	public Schema.Column set(int i, Schema.Column column) {
+		Schema.Column previous = columns.set(i, column);
+		index = null;
+		return previous;
+	}
+
+	@Override
+	public void add(int i, Schema.Column column) {
+		modCount++;
+		if (i == columns.size() && index != null) {
+			if (index.putIfAbsent(column.getName(), column) != null) duplicates = true;
+		} else {
+			index = null;
+		}
+		columns.add(i, column);
+	}
+
+	@Override
+	public Schema.Column remove(int i) {
+		modCount++;
+		index = null;
+		return columns.remove(i);
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		index = null;
+		columns.clear();
+	}
+
+	private Map<String, Schema.Column> index() {
+		if (index == null) {
+			Map<String, Schema.Column> map = new HashMap<>(columns.size() * 2);
+			boolean hasDuplicates = false;
+			for (Schema.Column column : columns) {
+				if (map.putIfAbsent(column.getName(), column) != null) hasDuplicates = true;
+			}
+			duplicates = hasDuplicates;
+			index = map;
+		}
+		return index;
+	}
+}
@@ -0,0 +1,194 @@
+package io.github.jsonflat.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.jayway.jsonpath.JsonPath;
+import io.github.jsonflat.schema.converter.Converter;
+import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.SimpleJsonPath;
+import io.github.jsonflat.utils.StringUtils;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable compiled form of {@link Schema}.
+ * Paths, result names and converters are resolved once, so transformation
+ * of a document only walks the tree of compiled columns.
+ * Result names are interned in {@link NameTable}, cells of rows refer to them by id.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+@Getter
+public class ExecutionPlan implements Serializable {
+	private final List<Column> columns;
+	private final NameTable names;      //result names of columns
+	private final int schemaModCount;   //modification count of the source schema, -1 if compiled from columns
+
+	private ExecutionPlan(List<Column> columns, NameTable names, int schemaModCount) {
+		this.columns = columns;
+		this.names = names;
+		this.schemaModCount = schemaModCount;
+	}
+
+	public static ExecutionPlan compile(Schema schema) {
+		NameTable names = schema.getNameTable();
+		return new ExecutionPlan(compile(schema.getColumns(), null, names), names, schema.getModCount());
+	}
+
+	public static ExecutionPlan compile(Collection<Schema.Column> columns) {
+		NameTable names = new NameTable(delimiter(columns.stream().findFirst().orElse(null)));
+		return new ExecutionPlan(compile(columns, null, names), names, -1);
+	}
+
+	/**
+	 * @param schema schema to check
+	 * @return true if schema was not changed after compilation of this plan
+	 */
+	public boolean isActual(Schema schema) {
+		return schemaModCount == schema.getModCount();
+	}
+
+	private static List<Column> compile(Collection<Schema.Column> columns, Column parent, NameTable names) {
+		if (columns == null || columns.isEmpty()) return Collections.emptyList();
+		List<Column> result = new ArrayList<>(columns.size());
+		for (Schema.Column c : columns) {
+			result.add(new Column(c, parent, names));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static String delimiter(Schema.Column column) {
+		return column != null && column.getSchema() != null ? column.getSchema().getDelimiter() : Schema.DEFAULT_DELIMITER;
+	}
+
+	@Getter
+	public static class Column implements Serializable {
+		private final String name;          //relative name of column in result
+		private final String resultName;    //full name of column under parentName
+		private final String parentName;    //full name of parent column
+		private final int nameId;           //ids of names in table
+		private final int resultId;
+		private final int parentId;         //NameTable.NONE for top-level column
+		private final NameTable names;
+		private final String path;          //path in source, null if column has no path
+		private final boolean fullname;
+		private final boolean skipJsonIfEmpty;
+		private final boolean skipRowIfEmpty;
+		private final Converter converter;
+		private final Schema.GroupPolicy group;
+		private final String delimiter;
+		private final List<Column> columns;
+		private final SimpleJsonPath simplePath; //native evaluator, null if path is evaluated by JsonPath
+
+		private transient JsonPath jsonPath; //compiled on first use, JsonPath is not serializable
+
+		private Column(Schema.Column column, Column parent, NameTable names) {
+			this.name = column.getName();
+			this.parentName = parent != null ? parent.resultName : null;
+			this.resultName = column.getFullname(parentName);
+			this.names = names;
+			this.nameId = names.id(name);
+			this.resultId = names.id(resultName);
+			this.parentId = parent != null ? parent.resultId : NameTable.NONE;
+			this.path = StringUtils.isNotBlank(column.getPath()) ? column.getPath() : column.getName();
+			this.fullname = column.isFullname();
+			this.skipJsonIfEmpty = column.isSkipJsonIfEmpty();
+			this.skipRowIfEmpty = column.isSkipRowIfEmpty();
+			this.converter = column.compileConverter();
+			this.converter.prepare();
+			this.group = column.getGroup();
+			this.delimiter = delimiter(column);
+			this.columns = compile(column.getColumns(), this, names);
+			this.simplePath = SimpleJsonPath.compile(path);
+		}
+
+		public boolean isLeaf() {
+			return columns.isEmpty();
+		}
+
+		/**
+		 * Full name of column in result. Returns precompiled name if parent is the compiled one
+		 * and builds the name only for renamed parents (COLUMNS group policy)
+		 * @param parent full name of parent column
+		 * @return full name of column
+		 */
+		public String getResultName(String parent) {
+			if (Objects.equals(parent, parentName)) {
+				return resultName;
+			}
+			if (StringUtils.isBlank(parent) || fullname) {
+				return name;
+			}
+			return parent + delimiter + name;
+		}
+
+		/**
+		 * Same as {@link #getResultName(String)} by ids of {@link #getNames()}, the name is built only once
+		 * for every renamed parent
+		 * @param parent id of full name of parent column, {@link NameTable#NONE} if there is no parent
+		 * @return id of full name of column
+		 */
+		public int getResultId(int parent) {
+			if (parent == parentId) {
+				return resultId;
+			}
+			if (parent == NameTable.NONE || fullname) {
+				return nameId;
+			}
+			if (!delimiter.equals(names.getDelimiter())) { //column of other schema, not cached
+				String parentName = names.name(parent);
+				return StringUtils.isBlank(parentName) ? nameId : names.id(parentName + delimiter + name);
+			}
+			return names.child(parent, nameId);
+		}
+
+		/**
+		 * Id of name of array element for {@link Schema.GroupPolicy#COLUMNS}
+		 * @param parent id of full name of the element parent
+		 * @param index  index of element
+		 * @return id of parent name, delimiter and index
+		 */
+		public int getIndexedId(int parent, int index) {
+			if (!delimiter.equals(names.getDelimiter())) return names.id(names.name(parent) + delimiter + index);
+			return names.indexed(parent, index);
+		}
+
+		/**
+		 * Evaluate column path on json node
+		 * @param element current node
+		 * @return list of found values, empty if nothing found
+		 */
+		public List<JsonNode> read(JsonNode element) {
+			if (element == null || path == null) return Collections.emptyList();
+			if (simplePath != null) return simplePath.read(element);
+			ArrayNode values = getJsonPath().read(element, JsonUtils.JSON_PATH_CONFIGURATION);
+			if (values == null || values.size() == 0) return Collections.emptyList();
+			List<JsonNode> result = new ArrayList<>(values.size());
+			values.forEach(result::add);
+			return result;
+		}
+
+		private JsonPath getJsonPath() {
+			JsonPath p = jsonPath;
+			if (p == null) {
+				p = JsonPath.compile(path);
+				jsonPath = p;
+			}
+			return p;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package io.github.jsonflat.schema;
+
+import io.github.jsonflat.utils.StringUtils;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned names of result columns. Every name gets an integer id, so rows refer to columns by id
+ * and names derived from parent names (renamed parents and array indices of {@link Schema.GroupPolicy#COLUMNS})
+ * are built once and then found by ids of their parts.
+ * Names are only added, so ids stay valid for all execution plans compiled from the schema of the table.
+ * Thread safe, names and derived ids are read without locks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class NameTable implements Serializable {
+	public static final int NONE = -1; //id of absent parent
+
+	@Getter
+	private final String delimiter;
+	private final Map<String, Integer> ids = new HashMap<>(); //guarded by this
+	private volatile String[] names = new String[16];         //replaced on growth, so readers see a consistent array
+	private int size;                                           //guarded by this
+	//derived names: parent id in high bits, index or id of relative name in low bits
+	private final ConcurrentHashMap<Long, Integer> indexed = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Long, Integer> children = new ConcurrentHashMap<>();
+
+	public NameTable(String delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * @param name name of column
+	 * @return id of name, it is added if absent
+	 */
+	public synchronized int id(String name) {
+		Integer id = ids.get(name);
+		if (id != null) return id;
+		String[] array = names;
+		if (size == array.length) array = Arrays.copyOf(array, size * 2);
+		array[size] = name;
+		names = array; //publish before the id is visible
+		ids.put(name, size);
+		return size++;
+	}
+
+	/**
+	 * @param id id of name
+	 * @return interned name, the same instance for every call
+	 */
+	public String name(int id) {
+		return names[id];
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Name of array element for {@link Schema.GroupPolicy#COLUMNS}: parent name, delimiter and index
+	 * @param parent id of parent name
+	 * @param index  index of element
+	 * @return id of element name
+	 */
+	public int indexed(int parent, int index) {
+		Long key = key(parent, index);
+		Integer id = indexed.get(key);
+		if (id == null) {
+			id = id(name(parent) + delimiter + index);
+			indexed.put(key, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Full name of column under parent, see {@link Schema.Column#getFullname(String)}
+	 * @param parent id of parent name, {@link #NONE} if there is no parent
+	 * @param name   id of relative name of column
+	 * @return id of full name
+	 */
+	public int child(int parent, int name) {
+		if (parent == NONE) return name;
+		Long key = key(parent, name);
+		Integer id = children.get(key);
+		if (id == null) {
+			String parentName = name(parent);
+			id = StringUtils.isBlank(parentName) ? name : id(parentName + delimiter + name(name));
+			children.put(key, id);
+		}
+		return id;
+	}
+
+	private static Long key(int parent, int value) {
+		return ((long) parent << 32) | (value & 0xFFFFFFFFL);
+	}
+}
@@ -1,6 +1,7 @@
 package io.github.jsonflat.schema;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.github.jsonflat.schema.converter.CachedConverter;
 import io.github.jsonflat.schema.converter.Converter;
 import io.github.jsonflat.schema.filter.Filter;
 import lombok.*;
@@ -8,7 +9,6 @@ import io.github.jsonflat.utils.StringUtils;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +30,6 @@ import java.util.stream.Collectors;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Schema implements Serializable {
 	public static final String DEFAULT_DELIMITER = "_";
 	public static final String GROUP_DELIMITER = ",";
@@ -38,9 +37,41 @@ public class Schema implements Serializable {
 	private String name;    //name of scheme (nullable)
 	private String version; //version of scheme
 	private Filter filter = Filter.DEFAULT; //filter input document
-	private Collection<Column> columns = new ArrayList<>();
+	private Collection<Column> columns = new ColumnList();
 	private String delimiter = DEFAULT_DELIMITER;
 
+	@JsonIgnore
+	@Setter(AccessLevel.NONE)
+	private transient int modCount; //count of structure modifications, used to recompile execution plans
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient List<String> cachedResultNames;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient int cachedResultNamesModCount;
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient NameTable nameTable;
+
+	public Schema(String name, String version, Filter filter, Collection<Column> columns, String delimiter) {
+		this.name = name;
+		this.version = version;
+		this.filter = filter;
+		this.columns = ColumnList.of(columns);
+		this.delimiter = delimiter;
+	}
+
+	public void setColumns(Collection<Column> columns) {
+		this.columns = ColumnList.of(columns);
+		modCount++;
+	}
+
+	public void setFilter(Filter filter) {
+		this.filter = filter;
+		modCount++;
+	}
+
 	/**
 	 * Filter by column names from result
 	 * support wildcards "*" and "?"
@@ -52,7 +83,9 @@ public class Schema implements Serializable {
 		if (stringFilter == null || stringFilter.size() == 0) {
 			return this;
 		}
-		return new Schema(name, version, filter, filterColumns(stringFilter, columns, ""), delimiter);
+		Collection<Column> filtered = filter(stringFilter);
+		modCount++; //columns are modified in place
+		return new Schema(name, version, filter, filtered, delimiter);
 	}
 
 	/**
@@ -88,20 +121,63 @@ public class Schema implements Serializable {
 					}
 				}
 		);
-		return new Schema(name, version, filter, filterColumns(stringFilter, columns, ""), delimiter);
+		Collection<Column> filtered = filter(stringFilter);
+		modCount++; //columns are modified in place
+		return new Schema(name, version, filter, filtered, delimiter);
+	}
+
+	/**
+	 * Filters columns in two passes: the first one finds matching columns bottom-up walking names in the trie
+	 * of {@link ColumnFilter}, the second one keeps them top-down. A column with children matches if any child matches,
+	 * a column with full name equal to a filter is kept as {@link GroupPolicy#ARRAY} without children.
+	 * Subtrees are accepted or rejected at once unless some column uses {@link Column#isFullname()}
+	 */
+	private Collection<Column> filter(List<String> stringFilter) {
+		ColumnFilter columnFilter = new ColumnFilter(stringFilter, delimiter);
+		Map<Column, Boolean> matched = new IdentityHashMap<>(); //true if all columns below are kept
+		match(columnFilter, columnFilter.root(), !hasFullname(columns), columns, "", matched);
+		return filterColumns(columnFilter, matched, columns, "");
 	}
 
-	private Collection<Column> filterColumns(List<String> columnsFilters, Collection<Column> columns, String parent) {
+	private static boolean match(ColumnFilter filter, ColumnFilter.Cursor parentCursor, boolean shortcuts,
+								 Collection<Column> columns, String parent, Map<Column, Boolean> matched) {
+		boolean any = false;
+		for (Column c : columns) {
+			String fullname = c.getFullname(parent);
+			ColumnFilter.Cursor cursor = filter.cursor(parentCursor, parent, fullname);
+			boolean match;
+			if (c.columns.isEmpty()) {
+				match = filter.matches(cursor, fullname);
+			} else if (shortcuts && filter.rejectsAll(cursor)) {
+				continue;
+			} else if (shortcuts && filter.acceptsAll(cursor)) {
+				matched.put(c, Boolean.TRUE);
+				any = true;
+				continue;
+			} else {
+				match = match(filter, cursor, shortcuts, c.columns, fullname, matched);
+			}
+			if (match) {
+				matched.put(c, Boolean.FALSE);
+				any = true;
+			}
+		}
+		return any;
+	}
+
+	private static Collection<Column> filterColumns(ColumnFilter filter, Map<Column, Boolean> matched, Collection<Column> columns, String parent) {
 		Collection<Column> filteredColumns = new LinkedHashSet<>(columns.size());
 		for (Column c : columns) {
-			if (columnsFilters.stream().anyMatch(f -> Objects.equals(f, c.getFullname(parent)))) {
+			String fullname = c.getFullname(parent);
+			if (filter.isExact(fullname)) {
 				c.setGroup(GroupPolicy.ARRAY);
 				c.getColumns().clear();
 				filteredColumns.add(c);
-			} else if (c.match(columnsFilters, parent)) {
+			} else if (matched.containsKey(c)) {
 				if (c.columns.size() > 0) {
-					c.setColumns(
-							filterColumns(columnsFilters, c.columns, c.getFullname(parent))
+					c.setColumns(matched.get(c)
+							? keepAll(c.columns)
+							: filterColumns(filter, matched, c.columns, fullname)
 					);
 				}
 				filteredColumns.add(c);
@@ -110,15 +186,69 @@ public class Schema implements Serializable {
 		return filteredColumns;
 	}
 
+	/**
+	 * Keeps all columns of accepted subtree, columns with equal names are collapsed as by filtering
+	 */
+	private static Collection<Column> keepAll(Collection<Column> columns) {
+		Collection<Column> kept = ColumnList.of(columns).hasDuplicates() ? new LinkedHashSet<>(columns) : columns;
+		for (Column c : kept) {
+			if (c.columns.size() > 0) c.setColumns(keepAll(c.columns));
+		}
+		return kept;
+	}
+
+	private static boolean hasFullname(Collection<Column> columns) {
+		for (Column c : columns) {
+			if (c.isFullname() || hasFullname(c.columns)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Merges columns of that schema into this one. The schema is modified only if that schema has new columns
+	 * or group policies, so execution plans and result names stay cached after merges of known documents
+	 * @param that schema to merge
+	 */
 	public void merge(Schema that) {
 		Column thisRoot = new Column(null, this.columns, this);
 		Column thatRoot = new Column(null, that.columns, that);
-		thisRoot.merge(thatRoot);
-		this.setColumns(thisRoot.getColumns());
+		if (thisRoot.merge(thatRoot)) this.setColumns(thisRoot.getColumns());
 	}
 
+	/**
+	 * Names of result columns. The names are cached till the next modification of schema,
+	 * so {@link #setColumns(Collection)} should be called after in place changes of columns
+	 */
 	public List<String> getResultNames() {
-		return new ArrayList<>(this.getResultNames(this.columns, ""));
+		List<String> names = cachedResultNames;
+		if (names == null || cachedResultNamesModCount != modCount) {
+			names = new ArrayList<>(this.getResultNames(this.columns, ""));
+			cachedResultNames = names;
+			cachedResultNamesModCount = modCount;
+		}
+		return new ArrayList<>(names);
+	}
+
+	/**
+	 * @return table of result names shared by execution plans of the schema, names are kept after merges
+	 * and it is replaced only if delimiter is changed
+	 */
+	@JsonIgnore
+	public synchronized NameTable getNameTable() {
+		NameTable table = nameTable;
+		if (table == null || !table.getDelimiter().equals(delimiter)) {
+			table = new NameTable(delimiter);
+			nameTable = table;
+		}
+		return table;
+	}
+
+	/**
+	 * @param name name of column
+	 * @return first top-level column with the name, null if there is no such column
+	 */
+	public Column getColumn(String name) {
+		return ColumnList.of(columns).get(name);
 	}
 
 	private LinkedHashSet<String> getResultNames(Collection<Column> column, String parent) {
@@ -150,11 +280,17 @@ public class Schema implements Serializable {
 		private boolean skipJsonIfEmpty = false;    //skip document parsing if true
 		private boolean skipRowIfEmpty = false;     //skip result of parsing if true
 		private Converter converter = Converter.DEFAULT;
-		private Collection<Column> columns = new ArrayList<>();
+		private int converterCache = 0; //max number of memoized results of converter, 0 if results are not cached
+		private Collection<Column> columns = new ColumnList(); //indexed by name
 		private GroupPolicy group = GroupPolicy.NO_GROUP;
 
 		@JsonIgnore
 		private Schema schema;
+		@JsonIgnore
+		@Getter(AccessLevel.NONE)
+		@Setter(AccessLevel.NONE)
+		@ToString.Exclude
+		private transient CachedConverter cachedConverter; //cache of converter results, kept between compilations
 
 		@Override
 		public boolean equals(Object o) {
@@ -177,21 +313,21 @@ public class Schema implements Serializable {
 
 		public Column(String path, Collection<Column> columns, Schema schema) {
 			this.path = path;
-			this.columns = columns;
+			this.columns = ColumnList.of(columns);
 			this.schema = schema;
 		}
 
 		public Column(String name, String path, Collection<Column> columns, Schema schema) {
 			this.name = name;
 			this.path = path;
-			this.columns = columns;
+			this.columns = ColumnList.of(columns);
 			this.schema = schema;
 		}
 
 		public Column(String name, String path, Collection<Column> columns, GroupPolicy groupPolicy, Schema schema) {
 			this.name = name;
 			this.path = path;
-			this.columns = columns;
+			this.columns = ColumnList.of(columns);
 			this.schema = schema;
 			this.group = groupPolicy;
 		}
@@ -203,7 +339,7 @@ public class Schema implements Serializable {
 			this.skipJsonIfEmpty = skipJsonIfEmpty;
 			this.skipRowIfEmpty = skipRowIfEmpty;
 			this.converter = converter;
-			this.columns = columns;
+			this.columns = ColumnList.of(columns);
 			this.group = group;
 			this.schema = schema;
 		}
@@ -215,53 +351,68 @@ public class Schema implements Serializable {
 			return parent + schema.getDelimiter() + name;
 		}
 
-		private boolean match(List<String> filters, String parent) {
-			if (columns.size() == 0) {
-				for (String p : filters) {
-					if (StringUtils.match(p, getFullname(parent))) {
-						return true;
-					}
-				}
-				return false;
-			} else {
-				int countMatch = columns.size();
-				for (Column c : columns) {
-					if (c.match(filters, getFullname(parent))) {
-						return true;
-					} else {
-						countMatch--;
-					}
-				}
-				return countMatch != 0;
+		public void setColumns(Collection<Column> columns) {
+			this.columns = ColumnList.of(columns);
+		}
+
+		/**
+		 * @return converter of column values wrapped in {@link CachedConverter} if {@link #getConverterCache()} is positive.
+		 * The cache is created once for converter and its size, so execution plans recompiled after merges share it
+		 */
+		Converter compileConverter() {
+			if (converter == null || converter == Converter.DEFAULT) return Converter.DEFAULT;
+			if (converterCache <= 0) return converter;
+			CachedConverter cached = cachedConverter;
+			if (cached == null || cached.getConverter() != converter || cached.getCapacity() != converterCache) {
+				cached = new CachedConverter(converter, converterCache);
+				cachedConverter = cached;
 			}
+			return cached;
+		}
+
+		/**
+		 * @return cache of converter results, null if column has no cache or it is not used yet
+		 */
+		@JsonIgnore
+		public CachedConverter getCachedConverter() {
+			return cachedConverter;
 		}
 
-		public void merge(Column that) {
+		/**
+		 * @param name name of column
+		 * @return first child column with the name, null if there is no such column
+		 */
+		public Column getColumn(String name) {
+			return ColumnList.of(columns).get(name);
+		}
+
+		/**
+		 * Merges that column into this: sets group policy, merges children with equal names
+		 * and appends new children. Only children of that column are visited
+		 * @param that column to merge
+		 * @return true if this column or its children are changed
+		 */
+		public boolean merge(Column that) {
+			boolean changed = this.group != that.getGroup();
 			this.setGroup(that.getGroup());
-			if (that.columns == null || that.columns.size() == 0) return;
-			Map<String, Column> thatMap = that.columns.stream()
-					.collect(
-							Collectors.toMap(
-									Column::getName, Function.identity()
-							)
-					);
-			Set<String> thisColumns = this.columns.stream().map(Column::getName).collect(Collectors.toSet());
-			//get new childs from that (absent in this)
-			List<Column> newColumns = that.columns.stream()
-					.filter(c -> !thisColumns.contains(c.getName()))
-					.peek(c -> c.setSchema(this.getSchema()))
-					.collect(Collectors.toList());
-
-			//merging childs
-			this.columns.stream()
-					.filter(c -> thatMap.containsKey(c.getName()))
-					.forEach(
-							column -> {
-								column.merge(thatMap.get(column.getName()));
-							}
-					);
-			//add new columns
-			this.columns.addAll(newColumns);
+			if (that.columns == null || that.columns.size() == 0) return changed;
+			ColumnList children = ColumnList.of(this.columns);
+			this.columns = children;
+			for (Column column : that.columns) {
+				Column existing = children.get(column.getName());
+				if (existing == null) {
+					column.setSchema(this.getSchema());
+					children.add(column);
+					changed = true;
+				} else if (children.hasDuplicates()) {
+					for (Column c : new ArrayList<>(children)) {
+						if (Objects.equals(c.getName(), column.getName())) changed |= c.merge(column);
+					}
+				} else {
+					changed |= existing.merge(column);
+				}
+			}
+			return changed;
 		}
 	}
 
@@ -0,0 +1,170 @@
+package io.github.jsonflat.schema.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Converter decorator memoizing results of a deterministic converter for repeated values.
+ * Results are kept in a bounded cache with CLOCK eviction: lookups are lock-free and only mark the entry as used,
+ * insertions are synchronized. Only values of primitive types are cached, objects and arrays are converted every time.
+ * Thread safe. Declared in schema by "converterCache" field of column, see {@link io.github.jsonflat.schema.Schema.Column}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class CachedConverter implements Converter {
+	private final Converter converter;
+	private final int capacity;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private transient volatile Clock clock; //null if should be created, e.g. after deserialization
+
+	/**
+	 * @param converter converter returning equal results for equal values
+	 * @param capacity  max number of cached results
+	 */
+	public CachedConverter(Converter converter, int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("Capacity of converter cache should be positive: " + capacity);
+		this.converter = converter;
+		this.capacity = capacity;
+	}
+
+	public Converter getConverter() {
+		return converter;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public void prepare() {
+		converter.prepare();
+	}
+
+	@Override
+	public JsonNode convert(JsonNode value) {
+		if (value == null || !value.isValueNode()) return converter.convert(value);
+		Clock c = clock();
+		JsonNode result = c.get(value);
+		if (result != null) {
+			hits.increment();
+			return result;
+		}
+		misses.increment();
+		result = converter.convert(value);
+		if (result != null) c.put(value, result);
+		return result;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return share of cached values among converted values of primitive types, 0 if nothing is converted
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * @return number of cached results
+	 */
+	public int getSize() {
+		Clock c = clock;
+		return c == null ? 0 : c.map.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%s cache: %d hits, %d misses, hit rate %.1f%%, %d of %d cached",
+				converter.getClass().getSimpleName(), getHits(), getMisses(), getHitRate() * 100, getSize(), capacity);
+	}
+
+	private Clock clock() {
+		Clock c = clock;
+		if (c == null) {
+			synchronized (this) {
+				c = clock;
+				if (c == null) {
+					c = new Clock(capacity);
+					clock = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Ring of entries with reference bits. The hand clears bits of used entries and evicts the first unused one
+	 */
+	private static final class Clock {
+		private final Map<JsonNode, Entry> map;
+		private final Entry[] ring;
+		private int count; //guarded by this
+		private int hand;  //guarded by this
+
+		Clock(int capacity) {
+			this.map = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+			this.ring = new Entry[capacity];
+		}
+
+		JsonNode get(JsonNode key) {
+			Entry entry = map.get(key);
+			if (entry == null) return null;
+			if (!entry.referenced) entry.referenced = true; //avoids writes to shared entries on every hit
+			return entry.value;
+		}
+
+		synchronized void put(JsonNode key, JsonNode value) {
+			if (map.containsKey(key)) return;
+			Entry entry = new Entry(key, value);
+			if (count < ring.length) {
+				ring[count++] = entry;
+			} else {
+				while (ring[hand].referenced) {
+					ring[hand].referenced = false;
+					hand = (hand + 1) % ring.length;
+				}
+				map.remove(ring[hand].key);
+				ring[hand] = entry;
+				hand = (hand + 1) % ring.length;
+			}
+			map.put(key, entry);
+		}
+	}
+
+	private static final class Entry {
+		private final JsonNode key;
+		private final JsonNode value;
+		private volatile boolean referenced;
+
+		Entry(JsonNode key, JsonNode value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
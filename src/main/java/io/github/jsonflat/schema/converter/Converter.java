@@ -27,4 +27,13 @@ public interface Converter extends Serializable {
 	Converter DEFAULT = v -> v;
 
 	JsonNode convert(JsonNode value);
+
+	/**
+	 * Precomputes state of converter (formatters, compiled patterns, lookup tables) after it is configured
+	 * or deserialized. Called when execution plan of a transformer is compiled, so it may be called several times.
+	 * Prepared state should be transient and built on first use if this method was not called
+	 * @throws IllegalArgumentException if converter is configured wrong
+	 */
+	default void prepare() {
+	}
 }
@@ -0,0 +1,28 @@
+package io.github.jsonflat.schema.converter;
+
+/**
+ * Thrown by converter to skip rows with the converted value, see {@link TypedConverter.FailurePolicy#SKIP_ROW}.
+ * The exception has no stack trace, so it is cheap to throw the shared instance.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class SkipRowException extends RuntimeException {
+	public static final SkipRowException INSTANCE = new SkipRowException();
+
+	private SkipRowException() {
+		super("Row is skipped by converter", null, false, false);
+	}
+}
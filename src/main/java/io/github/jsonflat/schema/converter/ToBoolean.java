@@ -0,0 +1,42 @@
+package io.github.jsonflat.schema.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+
+/**
+ * Converts booleans, numbers 1 and 0 and text "true", "false" (ignoring case), "1", "0" to boolean
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ToBoolean extends TypedConverter {
+	@Override
+	protected JsonNode convertValue(JsonNode n) {
+		if (n.isBoolean()) return n;
+		if (n.isIntegralNumber() && n.canConvertToLong()) return valueOf(n.longValue());
+		if (n.isTextual()) {
+			String text = n.textValue();
+			if ("true".equalsIgnoreCase(text) || "1".equals(text)) return BooleanNode.TRUE;
+			if ("false".equalsIgnoreCase(text) || "0".equals(text)) return BooleanNode.FALSE;
+		}
+		return null;
+	}
+
+	private static JsonNode valueOf(long value) {
+		if (value == 1) return BooleanNode.TRUE;
+		if (value == 0) return BooleanNode.FALSE;
+		return null;
+	}
+}
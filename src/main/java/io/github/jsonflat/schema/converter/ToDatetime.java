@@ -2,9 +2,9 @@ package io.github.jsonflat.schema.converter;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
 
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -32,12 +32,40 @@ public class ToDatetime implements Converter {
 	String pattern = "yyyy-MM-dd'T'HH:mm:ss Z";
 	String zone = "GMT";
 
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@lombok.ToString.Exclude
+	private transient DateTimeFormatter formatter; //null if should be prepared
+
+	public void setPattern(String pattern) {
+		this.pattern = pattern;
+		this.formatter = null;
+	}
+
+	public void setZone(String zone) {
+		this.zone = zone;
+		this.formatter = null;
+	}
+
+	@Override
+	public void prepare() {
+		try {
+			formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.of(zone));
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException("Wrong zone " + zone, e);
+		}
+	}
 
 	@Override
 	public JsonNode convert(JsonNode value) {
 		try {
+			DateTimeFormatter f = formatter;
+			if (f == null) {
+				prepare();
+				f = formatter;
+			}
 			Instant instant = Instant.ofEpochMilli(Long.parseLong(value.asText()));
-			return new TextNode(DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.of(zone)).format(instant));
+			return new TextNode(f.format(instant));
 		} catch (Exception e) {
 			return value;
 		}
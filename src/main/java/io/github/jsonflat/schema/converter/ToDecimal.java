@@ -0,0 +1,35 @@
+package io.github.jsonflat.schema.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+
+import java.math.BigDecimal;
+
+/**
+ * Converts numbers and their text to exact decimal. Infinite and NaN floating point numbers are not converted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ToDecimal extends TypedConverter {
+	@Override
+	protected JsonNode convertValue(JsonNode n) {
+		if (n.isBigDecimal()) return n;
+		if (n.isDouble() || n.isFloat()) return Double.isFinite(n.doubleValue()) ? DecimalNode.valueOf(n.decimalValue()) : null;
+		if (n.isNumber()) return DecimalNode.valueOf(n.decimalValue());
+		if (n.isTextual() && isDecimal(n.textValue())) return DecimalNode.valueOf(new BigDecimal(n.textValue()));
+		return null;
+	}
+}
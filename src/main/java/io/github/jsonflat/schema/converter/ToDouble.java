@@ -0,0 +1,32 @@
+package io.github.jsonflat.schema.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+
+/**
+ * Converts numbers and their text to double
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ToDouble extends TypedConverter {
+	@Override
+	protected JsonNode convertValue(JsonNode n) {
+		if (n.isDouble()) return n;
+		if (n.isNumber()) return DoubleNode.valueOf(n.doubleValue());
+		if (n.isTextual() && isDecimal(n.textValue())) return DoubleNode.valueOf(Double.parseDouble(n.textValue()));
+		return null;
+	}
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.LongNode;
 
 /**
- * 
+ * Converts integral numbers and integer text to long, floating point numbers are not converted.
+ * Unlike other typed converters fails on wrong values by default
+ *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
  * the License at
@@ -20,9 +22,45 @@ import com.fasterxml.jackson.databind.node.LongNode;
  * @author Evgeniy Chukanov
  */
 
-public class ToLong implements Converter {
+public class ToLong extends TypedConverter {
+	public ToLong() {
+		onFailure = FailurePolicy.FAIL;
+	}
+
 	@Override
-	public JsonNode convert(JsonNode n) {
-		return new LongNode(Long.parseLong(n.asText()));
+	protected JsonNode convertValue(JsonNode n) {
+		if (n.isLong()) return n;
+		if (n.isIntegralNumber()) return n.canConvertToLong() ? LongNode.valueOf(n.longValue()) : null;
+		if (n.isTextual()) return parseLong(n.textValue());
+		return null;
+	}
+
+	/**
+	 * Parses text as {@link Long#parseLong(String)} does for ascii digits, but returns null instead of exception
+	 */
+	private static JsonNode parseLong(String text) {
+		int length = text.length();
+		if (length == 0) return null;
+		int i = 0;
+		boolean negative = false;
+		char first = text.charAt(0);
+		if (first == '-' || first == '+') {
+			if (length == 1) return null;
+			negative = first == '-';
+			i++;
+		}
+		//accumulated negatively as Long.MIN_VALUE has no positive counterpart
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long limitBeforeMultiply = limit / 10;
+		long result = 0;
+		for (; i < length; i++) {
+			char c = text.charAt(i);
+			if (!isDigit(c) || result < limitBeforeMultiply) return null;
+			int digit = c - '0';
+			result *= 10;
+			if (result < limit + digit) return null;
+			result -= digit;
+		}
+		return LongNode.valueOf(negative ? result : -result);
 	}
 }
@@ -0,0 +1,95 @@
+package io.github.jsonflat.schema.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Base of converters to a json type with configurable behavior for values which can not be converted,
+ * see {@link FailurePolicy}. Null values are kept as is. Implementations return nodes of target type as is
+ * and parse textual values by chars, without intermediate strings and exceptions.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public abstract class TypedConverter implements Converter {
+	@Getter
+	@Setter
+	FailurePolicy onFailure = FailurePolicy.NULL;
+
+	@Override
+	public JsonNode convert(JsonNode value) {
+		if (value == null || value.isNull()) return value;
+		JsonNode result = convertValue(value);
+		if (result != null) return result;
+		switch (onFailure) {
+			case KEEP:
+				return value;
+			case SKIP_ROW:
+				throw SkipRowException.INSTANCE;
+			case FAIL:
+				throw new IllegalArgumentException("Value " + value + " can't be converted by " + getClass().getSimpleName());
+			default:
+				return NullNode.getInstance();
+		}
+	}
+
+	/**
+	 * @param value not null value
+	 * @return converted value, null if value can't be converted
+	 */
+	protected abstract JsonNode convertValue(JsonNode value);
+
+	/**
+	 * @return true if text is a decimal number: optional sign, digits with optional point and optional exponent
+	 */
+	protected static boolean isDecimal(String text) {
+		int length = text.length();
+		int i = 0;
+		if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+		int digits = 0;
+		while (i < length && isDigit(text.charAt(i))) {
+			i++;
+			digits++;
+		}
+		if (i < length && text.charAt(i) == '.') {
+			i++;
+			while (i < length && isDigit(text.charAt(i))) {
+				i++;
+				digits++;
+			}
+		}
+		if (digits == 0) return false;
+		if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+			if (i == length) return false;
+			while (i < length && isDigit(text.charAt(i))) i++;
+		}
+		return i == length;
+	}
+
+	protected static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	public enum FailurePolicy {
+		NULL,       //convert to json null, an empty value as missing one
+		KEEP,       //keep source value
+		SKIP_ROW,   //skip rows with the value
+		FAIL        //throw IllegalArgumentException
+	}
+}
@@ -0,0 +1,45 @@
+package io.github.jsonflat.schema.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.jayway.jsonpath.JsonPath;
+import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.SimpleJsonPath;
+
+/**
+ * Path of filter compiled once: evaluated by {@link SimpleJsonPath} if it is supported, otherwise by {@link JsonPath}.
+ * Immutable, so it is safely shared between threads.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+final class CompiledPath {
+	private final SimpleJsonPath simplePath; //null if path is evaluated by JsonPath
+	private final JsonPath jsonPath;
+
+	CompiledPath(String path) {
+		this.simplePath = SimpleJsonPath.compile(path);
+		this.jsonPath = simplePath == null ? JsonPath.compile(path) : null;
+	}
+
+	/**
+	 * @return true if path finds any value in node
+	 */
+	boolean exists(JsonNode node) {
+		if (simplePath != null) return !simplePath.read(node).isEmpty();
+		ArrayNode values = jsonPath.read(node, JsonUtils.JSON_PATH_CONFIGURATION);
+		return values != null && values.size() > 0;
+	}
+}
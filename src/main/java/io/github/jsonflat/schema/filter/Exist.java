@@ -1,11 +1,7 @@
 package io.github.jsonflat.schema.filter;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.jayway.jsonpath.JsonPath;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
 
 /**
  * 
@@ -26,13 +22,35 @@ import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Exist implements Filter {
 	String path;
 
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@ToString.Exclude
+	private transient CompiledPath compiled; //null if should be prepared
+
+	public Exist(String path) {
+		this.path = path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+		this.compiled = null;
+	}
+
+	@Override
+	public void prepare() {
+		compiled = new CompiledPath(path);
+	}
+
 	@Override
 	public Boolean apply(JsonNode jsonObject) {
-		ArrayNode values = JsonPath.read(jsonObject, path);
-		return values != null && values.size() > 0;
+		CompiledPath p = compiled;
+		if (p == null) {
+			prepare();
+			p = compiled;
+		}
+		return p.exists(jsonObject);
 	}
 }
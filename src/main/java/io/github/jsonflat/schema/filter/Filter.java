@@ -26,4 +26,13 @@ import java.util.function.Function;
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "class")
 public interface Filter extends Serializable, Function<JsonNode, Boolean> {
 	Filter DEFAULT = v -> true;
+
+	/**
+	 * Precomputes state of filter (compiled paths, lookup tables) after it is configured or deserialized.
+	 * Called when a transformer is built, so it may be called several times.
+	 * Prepared state should be transient and built on first use if this method was not called
+	 * @throws IllegalArgumentException if filter is configured wrong
+	 */
+	default void prepare() {
+	}
 }
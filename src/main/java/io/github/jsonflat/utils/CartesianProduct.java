@@ -1,12 +1,14 @@
 package io.github.jsonflat.utils;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import static java.util.stream.Collectors.toList;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * 
+ * Cartesian product of lists. Rows of {@link #iterator(List)} are views of a single shared index vector,
+ * so a row is valid only till the next row is taken, {@link #cartesianProduct(List)} and {@link #stream(List)}
+ * return copies of rows.
+ *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
  * the License at
@@ -24,28 +26,110 @@ import static java.util.stream.Collectors.toList;
 
 public class CartesianProduct {
 
+	/**
+	 * Builds all combinations of elements of lists, empty lists are ignored.
+	 * Elements of the first list change fastest.
+	 * @param lists factors of product
+	 * @return list of combinations
+	 */
 	public static <T> List<List<T>> cartesianProduct(List<? extends List<? extends T>> lists) {
-		List<List<T>> product = new ArrayList<>(lists.size() * 2);
-		for (List<? extends T> list : lists) {
-			if (!list.isEmpty()) {
-				List<List<T>> newProduct = new ArrayList<>(list.size() * 2);
-				for (T listElement : list) {
-					if (product.isEmpty()) {
-						List<T> newProductList = new ArrayList<>();
-						newProductList.add(listElement);
-						newProduct.add(newProductList);
-					} else {
-						for (List<T> productList : product) {
-							List<T> newProductList = new ArrayList<>(productList);
-							newProductList.add(listElement);
-							newProduct.add(newProductList);
-						}
-					}
+		List<List<T>> product = new ArrayList<>();
+		Iterator<List<T>> iterator = iterator(lists);
+		while (iterator.hasNext()) {
+			product.add(new ArrayList<>(iterator.next()));
+		}
+		return product;
+	}
+
+	/**
+	 * Iterates combinations in the same order as {@link #cartesianProduct(List)} without building them.
+	 * <b>Rows are reused:</b> all rows returned by the iterator are views of a single shared index vector,
+	 * a row is valid only till the next call of {@link Iterator#next()}. Copy it to keep.
+	 * @param lists factors of product, should not be changed during iteration
+	 * @return iterator of combinations
+	 */
+	public static <T> Iterator<List<T>> iterator(List<? extends List<? extends T>> lists) {
+		return new ProductIterator<>(lists);
+	}
+
+	/**
+	 * Ordered sequential stream of combinations in the order of {@link #iterator(List)}.
+	 * Unlike rows of the iterator, every row of the stream is a new list, so rows may be collected
+	 */
+	public static <T> Stream<List<T>> stream(List<? extends List<? extends T>> lists) {
+		long size = size(lists);
+		Spliterator<List<T>> spliterator = size == Long.MAX_VALUE ?
+				Spliterators.spliteratorUnknownSize(iterator(lists), Spliterator.ORDERED | Spliterator.NONNULL) :
+				Spliterators.spliterator(iterator(lists), size, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).map(ArrayList::new);
+	}
+
+	/**
+	 * @return number of combinations, Long.MAX_VALUE on overflow
+	 */
+	public static long size(List<? extends List<?>> lists) {
+		long size = 0;
+		for (List<?> list : lists) {
+			if (list.isEmpty()) continue;
+			if (size == 0) {
+				size = list.size();
+			} else if (size > Long.MAX_VALUE / list.size()) {
+				return Long.MAX_VALUE;
+			} else {
+				size *= list.size();
+			}
+		}
+		return size;
+	}
+
+	private static class ProductIterator<T> implements Iterator<List<T>> {
+		private final List<List<? extends T>> factors;
+		private final int[] indexes;
+		private final List<T> row = new AbstractList<T>() {
+			@Override
+			public T get(int index) {
+				return factors.get(index).get(indexes[index]);
+			}
+
+			@Override
+			public int size() {
+				return factors.size();
+			}
+		};
+		private int last;  //number of factors at their last element
+		private boolean started;
+		private boolean exhausted;
+
+		ProductIterator(List<? extends List<? extends T>> lists) {
+			this.factors = new ArrayList<>(lists.size());
+			for (List<? extends T> list : lists) {
+				if (list.isEmpty()) continue;
+				factors.add(list);
+				if (list.size() == 1) last++;
+			}
+			this.indexes = new int[factors.size()];
+			this.exhausted = factors.isEmpty();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !exhausted;
+		}
+
+		@Override
+		public List<T> next() {
+			if (exhausted) throw new NoSuchElementException();
+			if (started) {
+				int i = 0;
+				while (indexes[i] == factors.get(i).size() - 1) { //some factor is not at its last element
+					if (indexes[i] > 0) last--; //single element stays the last one
+					indexes[i++] = 0;
 				}
-				product = newProduct;
+				if (++indexes[i] == factors.get(i).size() - 1) last++;
 			}
+			started = true;
+			exhausted = last == indexes.length;
+			return row;
 		}
-		return product;
 	}
 }
- 
\ No newline at end of file
@@ -0,0 +1,151 @@
+package io.github.jsonflat.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lines of file read by blocks of bytes, for UTF-8 and other ASCII compatible encodings.
+ * Line boundaries are found on bytes, lines are ranges of blocks read from the file channel,
+ * so no String is created per line. Lines are separated by '\n', '\r' or "\r\n", as by {@link java.io.BufferedReader}.
+ * Lines are passed to other threads, so a block is not reused: every block is read into a new array
+ * which starts with the incomplete last line of the previous block.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class FileLines implements Iterator<InputLine>, Closeable {
+	private static final int BLOCK_SIZE = 1 << 16;
+	private static final int MAX_BLOCK_SIZE = 1 << 30;
+
+	private final FileChannel channel;
+	private byte[] block = new byte[0];
+	private int blockPosition;  //start of next line in block
+	private int blockEnd;       //end of whole lines in block
+	private int length;         //end of bytes read into block, the rest after blockEnd is an incomplete line
+	private boolean end;        //end of file is read
+
+	public FileLines(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+	}
+
+	/**
+	 * @return sequential stream of lines, the file is closed on close of stream
+	 */
+	public static Stream<InputLine> lines(Path path) throws IOException {
+		FileLines lines = new FileLines(path);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						lines.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (blockPosition < blockEnd) return true;
+		if (end) return false;
+		try {
+			readBlock();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return blockPosition < blockEnd;
+	}
+
+	@Override
+	public InputLine next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		int start = blockPosition;
+		int lineEnd = start;
+		while (lineEnd < blockEnd && block[lineEnd] != '\n' && block[lineEnd] != '\r') lineEnd++;
+		blockPosition = lineEnd;
+		if (blockPosition < blockEnd) {
+			if (block[blockPosition] == '\r' && blockPosition + 1 < blockEnd && block[blockPosition + 1] == '\n') blockPosition++;
+			blockPosition++;
+		}
+		return InputLine.of(block, start, lineEnd - start);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads next block of whole lines, the incomplete line of the current block is copied to its start.
+	 * The block is grown while it has no complete line
+	 */
+	private void readBlock() throws IOException {
+		int tail = length - blockEnd;
+		byte[] bytes = new byte[Math.max(BLOCK_SIZE, tail * 2)];
+		System.arraycopy(block, blockEnd, bytes, 0, tail);
+		int read = tail;
+		while (true) {
+			read = fill(bytes, read);
+			int wholeLines = end ? read : lastLineEnd(bytes, read);
+			if (wholeLines >= 0) {
+				block = bytes;
+				blockPosition = 0;
+				blockEnd = wholeLines;
+				length = read;
+				return;
+			}
+			//line is longer than block
+			if (bytes.length >= MAX_BLOCK_SIZE) throw new IOException("line is too long at offset " + (channel.position() - read));
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+	}
+
+	/**
+	 * Reads file till the end of array or the end of file
+	 * @return end of read bytes
+	 */
+	private int fill(byte[] bytes, int offset) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				end = true;
+				break;
+			}
+		}
+		return buffer.position();
+	}
+
+	/**
+	 * @return offset after the last line separator, -1 if there is no complete line.
+	 * '\r' at the end of bytes is not a complete separator, it can be followed by '\n'
+	 */
+	private static int lastLineEnd(byte[] bytes, int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			if (bytes[i] == '\n' || (bytes[i] == '\r' && i < length - 1)) return i + 1;
+		}
+		return -1;
+	}
+}
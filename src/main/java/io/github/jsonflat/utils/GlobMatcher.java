@@ -0,0 +1,132 @@
+package io.github.jsonflat.utils;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matcher of text by a set of wildcard patterns with '*' and '?', see {@link StringUtils#match(String, String)}.
+ * All patterns are compiled into a single NFA simulated by bit vectors: every char of text is processed once
+ * for all patterns, so matching is linear in text length whatever the number of '*' in patterns.
+ * Thread safe.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class GlobMatcher implements Serializable {
+	private final int words;           //length of state vectors
+	private final long[] initial;      //start states with epsilon closure
+	private final long[] stars;        //states of '*', they loop on any char and have epsilon move to the next state
+	private final long[] any;          //states of '?'
+	private final long[] accept;       //final states of patterns
+	private final Map<Character, long[]> literals = new HashMap<>(); //states advancing by char, including '?' states
+	private final long[][] asciiLiterals = new long[128][];           //same as literals for ascii chars
+
+	private GlobMatcher(Collection<String> patterns) {
+		int states = 0;
+		for (String pattern : patterns) {
+			states += normalize(pattern).length() + 1;
+		}
+		words = (states + 63) >>> 6;
+		initial = new long[words];
+		stars = new long[words];
+		any = new long[words];
+		accept = new long[words];
+		int state = 0;
+		for (String pattern : patterns) {
+			String p = normalize(pattern);
+			set(initial, state);
+			for (int i = 0; i < p.length(); i++, state++) {
+				char c = p.charAt(i);
+				if (c == '*') {
+					set(stars, state);
+				} else if (c == '?') {
+					set(any, state);
+				} else {
+					set(literals.computeIfAbsent(c, k -> new long[words]), state);
+				}
+			}
+			set(accept, state++);
+		}
+		for (Map.Entry<Character, long[]> literal : literals.entrySet()) {
+			long[] mask = literal.getValue();
+			for (int i = 0; i < words; i++) mask[i] |= any[i];
+			if (literal.getKey() < asciiLiterals.length) asciiLiterals[literal.getKey()] = mask;
+		}
+		closure(initial);
+	}
+
+	/**
+	 * @param patterns wildcard patterns, blank patterns match empty text only
+	 */
+	public static GlobMatcher compile(Collection<String> patterns) {
+		return new GlobMatcher(patterns);
+	}
+
+	/**
+	 * @return true if text matches any pattern
+	 */
+	public boolean matches(CharSequence text) {
+		long[] active = initial.clone();
+		long[] next = new long[words];
+		for (int i = 0; i < text.length(); i++) {
+			long[] mask = mask(text.charAt(i));
+			long carry = 0;
+			boolean alive = false;
+			for (int w = 0; w < words; w++) {
+				long advanced = active[w] & mask[w];
+				long value = (advanced << 1) | carry | (active[w] & stars[w]);
+				carry = advanced >>> 63;
+				next[w] = value;
+				alive |= value != 0;
+			}
+			if (!alive) return false;
+			closure(next);
+			long[] t = active;
+			active = next;
+			next = t;
+		}
+		for (int w = 0; w < words; w++) {
+			if ((active[w] & accept[w]) != 0) return true;
+		}
+		return false;
+	}
+
+	private long[] mask(char c) {
+		long[] mask = c < asciiLiterals.length ? asciiLiterals[c] : literals.get(c);
+		return mask == null ? any : mask;
+	}
+
+	/**
+	 * Adds epsilon moves from '*' states. Patterns have no consecutive '*', so one step is enough
+	 */
+	private void closure(long[] states) {
+		long carry = 0;
+		for (int w = 0; w < words; w++) {
+			long star = states[w] & stars[w];
+			states[w] |= (star << 1) | carry;
+			carry = star >>> 63;
+		}
+	}
+
+	private static String normalize(String pattern) {
+		return StringUtils.deDuplicateChars(pattern, '*');
+	}
+
+	private static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << (i & 63);
+	}
+}
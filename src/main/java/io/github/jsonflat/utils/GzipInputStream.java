@@ -0,0 +1,189 @@
+package io.github.jsonflat.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompressed content of gzip input, concatenated members are read one after another, as by gzip and zcat.
+ * Unlike {@link java.util.zip.GZIPInputStream} the next member is found by its header on any input,
+ * not only when the source reports available bytes, so members of a pipe are not lost.
+ * Bytes after the last member which are not a gzip header are ignored.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class GzipInputStream extends InputStream {
+	private static final int MAGIC_1 = 0x1f;
+	private static final int MAGIC_2 = 0x8b;
+	private static final int DEFLATE = 8;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private final InputStream in;
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+	private final byte[] buffer = new byte[1 << 16];
+	private int position; //first byte of buffer not passed to inflater or header reader
+	private int length;
+	private long size;    //decompressed size of current member
+	private boolean end;
+
+	/**
+	 * @param in gzip input, it is read by blocks, so it needs no buffering
+	 * @throws ZipException if input doesn't start with gzip header
+	 */
+	public GzipInputStream(InputStream in) throws IOException {
+		this.in = in;
+		if (!readMember()) throw new ZipException("Not in GZIP format");
+	}
+
+	/**
+	 * @param path file
+	 * @return true if file starts with gzip magic bytes
+	 */
+	public static boolean isGzip(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return in.read() == MAGIC_1 && in.read() == MAGIC_2;
+		}
+	}
+
+	/**
+	 * Checks magic bytes, the stream is reset to its start
+	 * @param in stream supporting mark
+	 * @return true if stream starts with gzip magic bytes
+	 */
+	public static boolean isGzip(InputStream in) throws IOException {
+		in.mark(2);
+		try {
+			return in.read() == MAGIC_1 && in.read() == MAGIC_2;
+		} finally {
+			in.reset();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) return 0;
+		while (!end) {
+			int n;
+			try {
+				n = inflater.inflate(b, off, len);
+			} catch (DataFormatException e) {
+				throw new ZipException(e.getMessage() != null ? e.getMessage() : "Invalid GZIP data format");
+			}
+			if (n > 0) {
+				crc.update(b, off, n);
+				size += n;
+				return n;
+			}
+			if (inflater.finished()) {
+				position = length - inflater.getRemaining();
+				readTrailer();
+				end = !readMember();
+			} else if (inflater.needsDictionary()) {
+				throw new ZipException("Invalid GZIP data format");
+			} else if (inflater.needsInput()) {
+				if (position == length && !fill()) throw new EOFException("Unexpected end of GZIP input");
+				inflater.setInput(buffer, position, length - position);
+				position = length;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		end = true;
+		inflater.end();
+		in.close();
+	}
+
+	/**
+	 * Reads header of the next member
+	 * @return false if there is no next member
+	 */
+	private boolean readMember() throws IOException {
+		if (position == length && !fill()) return false;
+		if ((buffer[position] & 0xff) != MAGIC_1) return false;
+		position++;
+		if (readByte() != MAGIC_2) return false;
+		if (readByte() != DEFLATE) throw new ZipException("Unsupported GZIP compression method");
+		int flags = readByte();
+		skip(6); //modification time, extra flags, OS
+		if ((flags & FEXTRA) != 0) skip(readByte() | readByte() << 8);
+		if ((flags & FNAME) != 0) skipString();
+		if ((flags & FCOMMENT) != 0) skipString();
+		if ((flags & FHCRC) != 0) skip(2);
+		inflater.reset();
+		crc.reset();
+		size = 0;
+		return true;
+	}
+
+	private void readTrailer() throws IOException {
+		long checksum = readInt();
+		long isize = readInt();
+		if (checksum != crc.getValue()) throw new ZipException("Corrupt GZIP trailer, CRC mismatch");
+		if (isize != (size & 0xffffffffL)) throw new ZipException("Corrupt GZIP trailer, size mismatch");
+	}
+
+	private long readInt() throws IOException {
+		return (readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24) & 0xffffffffL;
+	}
+
+	private void skipString() throws IOException {
+		while (readByte() != 0) ;
+	}
+
+	private void skip(int n) throws IOException {
+		for (int i = 0; i < n; i++) {
+			readByte();
+		}
+	}
+
+	private int readByte() throws IOException {
+		if (position == length && !fill()) throw new EOFException("Unexpected end of GZIP input");
+		return buffer[position++] & 0xff;
+	}
+
+	/**
+	 * Reads the next block of input into empty buffer
+	 * @return false at the end of input
+	 */
+	private boolean fill() throws IOException {
+		int n;
+		do {
+			n = in.read(buffer, 0, buffer.length);
+		} while (n == 0);
+		position = 0;
+		length = Math.max(n, 0);
+		return n > 0;
+	}
+}
@@ -0,0 +1,152 @@
+package io.github.jsonflat.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line of input: a String or a range of bytes of a shared buffer.
+ * Byte lines are parsed by jackson directly from the buffer without decoding to String.
+ * Log prefix is skipped by offset, so the line content is never copied before parsing.
+ * Lines are immutable, so they can be passed to other threads.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public abstract class InputLine {
+
+	public static InputLine of(String text) {
+		return new StringLine(text, 0);
+	}
+
+	/**
+	 * @param bytes  buffer, should not be changed after creation of the line
+	 * @param offset start of line in buffer
+	 * @param length length of line in bytes
+	 */
+	public static InputLine of(byte[] bytes, int offset, int length) {
+		return new ByteLine(bytes, offset, offset, offset + length);
+	}
+
+	/**
+	 * Skips log prefix: json starts from first '{' or '[' if any, see {@link StringUtils#jsonOffset(CharSequence, int, int)}
+	 * @return line with skipped prefix
+	 */
+	public abstract InputLine skipLogPrefix();
+
+	/**
+	 * @return text skipped by {@link #skipLogPrefix()}, empty if nothing is skipped
+	 */
+	public abstract LogPrefix getPrefix();
+
+	/**
+	 * @return new parser of the line content after skipped prefix
+	 */
+	public abstract JsonParser createParser(JsonFactory factory) throws IOException;
+
+	/**
+	 * @return true if the content after skipped prefix is a top-level array
+	 */
+	public abstract boolean isArray();
+
+	private static final class StringLine extends InputLine {
+		private final String text;
+		private final int offset; //start of content
+
+		StringLine(String text, int offset) {
+			this.text = text;
+			this.offset = offset;
+		}
+
+		@Override
+		public InputLine skipLogPrefix() {
+			int jsonOffset = StringUtils.jsonOffset(text, offset, text.length());
+			return jsonOffset == offset ? this : new StringLine(text, jsonOffset);
+		}
+
+		@Override
+		public LogPrefix getPrefix() {
+			return LogPrefix.of(text, 0, offset);
+		}
+
+		@Override
+		public JsonParser createParser(JsonFactory factory) throws IOException {
+			if (offset == 0) return factory.createParser(text);
+			StringReader reader = new StringReader(text);
+			reader.skip(offset);
+			return factory.createParser(reader);
+		}
+
+		@Override
+		public boolean isArray() {
+			for (int i = offset; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (!Character.isWhitespace(c)) return c == '[';
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return text.substring(offset);
+		}
+	}
+
+	private static final class ByteLine extends InputLine {
+		private final byte[] bytes;
+		private final int start;  //start of line
+		private final int offset; //start of content
+		private final int end;
+
+		ByteLine(byte[] bytes, int start, int offset, int end) {
+			this.bytes = bytes;
+			this.start = start;
+			this.offset = offset;
+			this.end = end;
+		}
+
+		@Override
+		public InputLine skipLogPrefix() {
+			int jsonOffset = StringUtils.jsonOffset(bytes, offset, end);
+			return jsonOffset == offset ? this : new ByteLine(bytes, start, jsonOffset, end);
+		}
+
+		@Override
+		public LogPrefix getPrefix() {
+			return LogPrefix.of(bytes, start, offset);
+		}
+
+		@Override
+		public JsonParser createParser(JsonFactory factory) throws IOException {
+			return factory.createParser(bytes, offset, end - offset);
+		}
+
+		@Override
+		public boolean isArray() {
+			for (int i = offset; i < end; i++) {
+				if (!Character.isWhitespace(bytes[i])) return bytes[i] == '[';
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package io.github.jsonflat.utils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves input arguments to files: a file is taken as is, a directory is replaced by its regular files
+ * (recursively), a glob pattern ('*', '?', '[...]', '{...}', '**' for nested directories) is matched against files
+ * under the longest directory prefix without wildcards. Files of a directory or a pattern are sorted by path,
+ * a file is taken once even if several arguments match it.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public final class InputPaths {
+	private InputPaths() {
+	}
+
+	/**
+	 * @param arguments paths of files or directories and glob patterns
+	 * @return readable files in order of arguments
+	 * @throws IOException if an argument matches no file or a file is not readable
+	 */
+	public static List<Path> resolve(List<String> arguments) throws IOException {
+		Set<Path> result = new LinkedHashSet<>();
+		for (String argument : arguments) {
+			List<Path> files = resolve(argument);
+			if (files.isEmpty()) throw new NoSuchFileException(argument, null, "no input files");
+			result.addAll(files);
+		}
+		return new ArrayList<>(result);
+	}
+
+	private static List<Path> resolve(String argument) throws IOException {
+		int wildcard = wildcard(argument);
+		if (wildcard < 0) {
+			Path path = Paths.get(argument);
+			if (Files.isDirectory(path)) return files(path, p -> true);
+			if (!Files.exists(path)) throw new NoSuchFileException(argument, null, "no input files");
+			if (!Files.isReadable(path)) throw new AccessDeniedException(argument, null, "can't read input file");
+			List<Path> file = new ArrayList<>(1);
+			file.add(path);
+			return file;
+		}
+		int separator = Math.max(argument.lastIndexOf('/', wildcard), argument.lastIndexOf(FileSystems.getDefault().getSeparator(), wildcard));
+		Path base = Paths.get(separator < 0 ? "." : separator == 0 ? "/" : argument.substring(0, separator));
+		if (!Files.isDirectory(base)) return new ArrayList<>();
+		PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + argument.substring(separator + 1));
+		return files(base, p -> matcher.matches(base.relativize(p)));
+	}
+
+	private static List<Path> files(Path directory, Predicate<Path> filter) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
+			return paths
+					.filter(Files::isRegularFile)
+					.filter(filter)
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * @return position of the first wildcard char, -1 if argument is a plain path
+	 */
+	private static int wildcard(String argument) {
+		for (int i = 0; i < argument.length(); i++) {
+			char c = argument.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+		}
+		return -1;
+	}
+}
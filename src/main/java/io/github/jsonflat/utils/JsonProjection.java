@@ -0,0 +1,180 @@
+package io.github.jsonflat.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tree of {@link SimpleJsonPath} used to read only referenced parts of json document from {@link JsonParser}.
+ * Unreferenced subtrees are skipped by the parser without building nodes.
+ * Evaluation of added paths on a projected document gives the same result as on the whole document.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class JsonProjection implements Serializable {
+	private final Map<String, JsonProjection> fields = new HashMap<>();
+	private JsonProjection wildcard;
+	private boolean value;  //node is used as value: arrays and primitives are read as is, objects are projected
+	private boolean all;    //node is read as is
+
+	/**
+	 * Adds path to the projection
+	 * @param path path relative to this node
+	 * @return projection node at the end of the path
+	 */
+	public JsonProjection add(SimpleJsonPath path) {
+		JsonProjection current = this;
+		for (String segment : path.getSegments()) {
+			if (segment == null) {
+				if (current.wildcard == null) current.wildcard = new JsonProjection();
+				current = current.wildcard;
+			} else {
+				current = current.fields.computeIfAbsent(segment, s -> new JsonProjection());
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Marks node as used by value (non-leaf column)
+	 */
+	public JsonProjection value() {
+		this.value = true;
+		return this;
+	}
+
+	/**
+	 * Marks node to be read as is (leaf column)
+	 */
+	public JsonProjection all() {
+		this.all = true;
+		return this;
+	}
+
+	/**
+	 * Reads projected json value from parser. Parser should point to the start of value or before it.
+	 * After reading the next token of parser is the token following the value
+	 * @param parser json parser
+	 * @param mapper mapper to build nodes the same way as {@link ObjectMapper#readTree(JsonParser)}
+	 * @return projected node, null if there is no value in parser
+	 */
+	public JsonNode read(JsonParser parser, ObjectMapper mapper) throws IOException {
+		JsonToken token = parser.getCurrentToken();
+		if (token == null) token = parser.nextToken();
+		if (token == null) return null;
+		JsonNode node = read(parser, new NodeBuilder(mapper));
+		return node != null ? node : mapper.getNodeFactory().objectNode();
+	}
+
+	private JsonNode read(JsonParser parser, NodeBuilder builder) throws IOException {
+		JsonToken token = parser.getCurrentToken();
+		if (token == JsonToken.START_OBJECT) {
+			if (all || (wildcard != null && !fields.isEmpty())) return builder.readTree(parser);
+			ObjectNode node = builder.factory.objectNode();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonProjection child = wildcard != null ? wildcard : fields.get(name);
+				parser.nextToken();
+				if (child == null) {
+					parser.skipChildren();
+				} else {
+					JsonNode value = child.read(parser, builder);
+					if (value != null) {
+						node.set(name, value);
+					} else {
+						node.remove(name);
+					}
+				}
+			}
+			return node;
+		} else if (token == JsonToken.START_ARRAY) {
+			if (all || value) return builder.readTree(parser);
+			if (wildcard == null) {
+				parser.skipChildren();
+				return null;
+			}
+			ArrayNode node = builder.factory.arrayNode();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				JsonNode element = wildcard.read(parser, builder);
+				if (element != null) node.add(element);
+			}
+			return node;
+		}
+		return builder.readScalar(parser);
+	}
+
+	/**
+	 * Builds nodes the same way as jackson's JsonNodeDeserializer does
+	 */
+	private static class NodeBuilder {
+		final ObjectMapper mapper;
+		final JsonNodeFactory factory;
+		final boolean bigIntegerForInts;
+		final boolean longForInts;
+		final boolean bigDecimalForFloats;
+
+		NodeBuilder(ObjectMapper mapper) {
+			DeserializationConfig config = mapper.getDeserializationConfig();
+			this.mapper = mapper;
+			this.factory = config.getNodeFactory();
+			this.bigIntegerForInts = config.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+			this.longForInts = config.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+			this.bigDecimalForFloats = config.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+		}
+
+		JsonNode readTree(JsonParser parser) throws IOException {
+			return mapper.readTree(parser);
+		}
+
+		JsonNode readScalar(JsonParser parser) throws IOException {
+			switch (parser.getCurrentToken()) {
+				case VALUE_STRING:
+					return factory.textNode(parser.getText());
+				case VALUE_NUMBER_INT:
+					JsonParser.NumberType type = bigIntegerForInts ? JsonParser.NumberType.BIG_INTEGER
+							: longForInts ? JsonParser.NumberType.LONG
+							: parser.getNumberType();
+					if (type == JsonParser.NumberType.INT) return factory.numberNode(parser.getIntValue());
+					if (type == JsonParser.NumberType.LONG) return factory.numberNode(parser.getLongValue());
+					return factory.numberNode(parser.getBigIntegerValue());
+				case VALUE_NUMBER_FLOAT:
+					if (bigDecimalForFloats || parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+						return factory.numberNode(parser.getDecimalValue());
+					}
+					return factory.numberNode(parser.getDoubleValue());
+				case VALUE_TRUE:
+					return factory.booleanNode(true);
+				case VALUE_FALSE:
+					return factory.booleanNode(false);
+				case VALUE_NULL:
+					return factory.nullNode();
+				default:
+					return mapper.readTree(parser);
+			}
+		}
+	}
+}
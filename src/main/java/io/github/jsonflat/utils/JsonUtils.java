@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import lombok.val;
 
 import java.util.*;
@@ -28,6 +32,14 @@ import java.util.stream.Collectors;
  */
 
 public class JsonUtils {
+	/**
+	 * JsonPath configuration for evaluation of precompiled paths on jackson tree
+	 */
+	public static final Configuration JSON_PATH_CONFIGURATION = Configuration.builder()
+			.jsonProvider(new JacksonJsonNodeJsonProvider())
+			.mappingProvider(new JacksonMappingProvider())
+			.options(EnumSet.of(Option.ALWAYS_RETURN_LIST, Option.SUPPRESS_EXCEPTIONS))
+			.build();
 
 	public static List<JsonNode> select(JsonNode node, Predicate<JsonNode> predicate) {
 		if (node == null) return Collections.emptyList();
@@ -64,16 +76,82 @@ public class JsonUtils {
 	}
 
 	public static String writeCsvValue(List<String> names, JsonNode node, String delimiter) {
-		return names.stream()
-				.map(n -> getCSVValue(node.get(n)))
-				.collect(Collectors.joining(delimiter));
+		return appendCsvValue(new StringBuilder(), names, node, delimiter).toString();
 	}
 
-	private static String getCSVValue(JsonNode node) {
-		if (node == null || node.isNull()) return "";
-		if (node.isBinary() || node.isNumber()) return node.asText();
-		if (node.isArray()) return "\"" + StringUtils.escapeQuotes(node.toString()) + "\"";
-		else return "\"" + StringUtils.escapeQuotes(node.asText()) + "\"";
+	/**
+	 * Appends csv values of row to builder. Numbers and booleans are appended without intermediate strings
+	 * @param result target builder
+	 * @param names names of columns
+	 * @param node row
+	 * @param delimiter delimiter of values
+	 * @return result builder
+	 */
+	public static StringBuilder appendCsvValue(StringBuilder result, List<String> names, JsonNode node, String delimiter) {
+		for (int i = 0; i < names.size(); i++) {
+			if (i > 0) result.append(delimiter);
+			appendCsvValue(result, node.get(names.get(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * Same as {@link #appendCsvValue(StringBuilder, List, JsonNode, String)} for values placed by positions of columns
+	 * @param result target builder
+	 * @param values values of columns, null if value is absent
+	 * @param delimiter delimiter of values
+	 * @return result builder
+	 */
+	public static StringBuilder appendCsvValues(StringBuilder result, JsonNode[] values, String delimiter) {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) result.append(delimiter);
+			appendCsvValue(result, values[i]);
+		}
+		return result;
+	}
+
+	private static void appendCsvValue(StringBuilder result, JsonNode node) {
+		if (node == null || node.isNull()) return;
+		if (node.isNumber()) {
+			switch (node.numberType()) {
+				case INT:
+				case LONG:
+					result.append(node.longValue());
+					return;
+				case DOUBLE:
+					result.append(node.doubleValue()); //the same text as JsonNode#asText
+					return;
+				default:
+					result.append(node.asText());
+					return;
+			}
+		}
+		if (node.isBinary()) {
+			result.append(node.asText());
+		} else if (node.isBoolean()) {
+			result.append(node.booleanValue() ? "\"true\"" : "\"false\"");
+		} else if (node.isArray()) {
+			appendQuoted(result, node.toString());
+		} else {
+			appendQuoted(result, node.asText());
+		}
+	}
+
+	/**
+	 * Appends text as quoted csv value, quotes are escaped as by {@link StringUtils#escapeQuotes(String)}
+	 * @param result target builder
+	 * @param text value, blank text is written as empty quotes
+	 */
+	public static void appendQuoted(StringBuilder result, String text) {
+		result.append('"');
+		if (StringUtils.isNotBlank(text)) {
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '"') result.append('\\');
+				result.append(c);
+			}
+		}
+		result.append('"');
 	}
 
 	public static void reformatNestedUnnamedArrays(JsonNode node) {
@@ -0,0 +1,127 @@
+package io.github.jsonflat.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Text of log line before json, e.g. timestamp and level, see {@link InputLine#getPrefix()}.
+ * The prefix is a view of the line: fields separated by spaces or tabs are found on first access,
+ * their values are copied only by {@link #get(int)} or {@link #getChars(int, char[])}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public final class LogPrefix {
+	public static final LogPrefix EMPTY = new LogPrefix(null, null, 0, 0);
+
+	private final String text;  //source of string line
+	private final byte[] bytes; //source of byte line
+	private final int start;
+	private final int end;
+	private int[] bounds;       //start and end of every field
+
+	private LogPrefix(String text, byte[] bytes, int start, int end) {
+		this.text = text;
+		this.bytes = bytes;
+		this.start = start;
+		this.end = end;
+	}
+
+	static LogPrefix of(String text, int start, int end) {
+		return start < end ? new LogPrefix(text, null, start, end) : EMPTY;
+	}
+
+	static LogPrefix of(byte[] bytes, int start, int end) {
+		return start < end ? new LogPrefix(null, bytes, start, end) : EMPTY;
+	}
+
+	/**
+	 * @return number of fields
+	 */
+	public int size() {
+		return bounds().length / 2;
+	}
+
+	/**
+	 * @return maximal length of field in chars
+	 */
+	public int length(int i) {
+		int[] b = bounds();
+		return b[2 * i + 1] - b[2 * i];
+	}
+
+	/**
+	 * @return value of field
+	 */
+	public String get(int i) {
+		int[] b = bounds();
+		if (text != null) return text.substring(b[2 * i], b[2 * i + 1]);
+		return new String(bytes, b[2 * i], b[2 * i + 1] - b[2 * i], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Copies value of field to buffer
+	 * @param target buffer of at least {@link #length(int)} chars
+	 * @return number of copied chars
+	 */
+	public int getChars(int i, char[] target) {
+		int[] b = bounds();
+		int from = b[2 * i];
+		int to = b[2 * i + 1];
+		if (text != null) {
+			text.getChars(from, to, target, 0);
+			return to - from;
+		}
+		for (int j = from; j < to; j++) {
+			if (bytes[j] < 0) {
+				//not ascii, decode
+				String value = get(i);
+				value.getChars(0, value.length(), target, 0);
+				return value.length();
+			}
+			target[j - from] = (char) bytes[j];
+		}
+		return to - from;
+	}
+
+	@Override
+	public String toString() {
+		if (text != null) return text.substring(start, end);
+		return bytes == null ? "" : new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	private int[] bounds() {
+		if (bounds == null) {
+			int count = 0;
+			for (int i = start; i < end; i++) {
+				if (!isSpace(i) && (i == start || isSpace(i - 1))) count++;
+			}
+			int[] result = new int[count * 2];
+			int field = 0;
+			for (int i = start; i < end; i++) {
+				if (isSpace(i)) continue;
+				result[field++] = i;
+				while (i < end && !isSpace(i)) i++;
+				result[field++] = i;
+			}
+			bounds = result;
+		}
+		return bounds;
+	}
+
+	private boolean isSpace(int i) {
+		int c = text != null ? text.charAt(i) : bytes[i];
+		return c == ' ' || c == '\t';
+	}
+}
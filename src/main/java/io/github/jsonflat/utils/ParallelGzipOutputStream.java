@@ -0,0 +1,148 @@
+package io.github.jsonflat.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output compressed by several threads, like pigz. Written bytes are cut to blocks, every block is compressed
+ * to an independent gzip member by a thread of the pool, members are written in order of blocks.
+ * Concatenated members are a valid gzip file, they are read by gzip, zcat and {@link GzipInputStream}.
+ * At most two blocks per thread are waiting for compression, so memory is bounded.
+ * Not thread safe, bytes are written by a single thread.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ParallelGzipOutputStream extends OutputStream {
+	public static final int BLOCK_SIZE = 1 << 17;
+
+	private final OutputStream out;
+	private final int threads;
+	private final ExecutorService pool;
+	private final Queue<Future<byte[]>> members = new ArrayDeque<>(); //members in order of blocks
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int size;
+	private long count; //number of members
+	private boolean finished;
+
+	/**
+	 * @param out     output of compressed members, it is closed on close
+	 * @param threads number of compressing threads
+	 */
+	public ParallelGzipOutputStream(OutputStream out, int threads) {
+		this.out = out;
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "gzip");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (size == block.length) compressBlock();
+		block[size++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (size == block.length) compressBlock();
+			int n = Math.min(len, block.length - size);
+			System.arraycopy(b, off, block, size, n);
+			size += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Compresses the current partial block and writes all members
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (size > 0) compressBlock();
+		while (!members.isEmpty()) {
+			writeMember();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes all members and stops compressing threads, the output is not closed.
+	 * An empty output gets an empty member, so it is a valid gzip file
+	 */
+	public void finish() throws IOException {
+		if (finished) return;
+		try {
+			if (count == 0) compressBlock();
+			flush();
+		} finally {
+			finished = true;
+			pool.shutdownNow();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void compressBlock() throws IOException {
+		if (finished) throw new IOException("Stream is finished");
+		byte[] data = block;
+		int length = size;
+		members.add(pool.submit(() -> compress(data, length)));
+		count++;
+		block = new byte[BLOCK_SIZE];
+		size = 0;
+		while (members.size() > threads * 2) {
+			writeMember();
+		}
+	}
+
+	private void writeMember() throws IOException {
+		try {
+			out.write(members.poll().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+	}
+
+	private static byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(member, BLOCK_SIZE)) {
+			gzip.write(data, 0, length);
+		}
+		return member.toByteArray();
+	}
+}
@@ -0,0 +1,180 @@
+package io.github.jsonflat.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Processes items on a pool of worker threads and passes results to a single writer thread.
+ * Items are numbered on submit, in ordered mode the writer receives results in submit order.
+ * The number of items in processing (submitted but not written) is limited by capacity,
+ * so submit blocks while workers or writer are behind.
+ * The first exception of worker or writer stops processing and is thrown by {@link #submit} or {@link #close}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class ParallelPipeline<T, R> implements AutoCloseable {
+	private static final Result<?> END = new Result<>(-1, null, null);
+
+	private final Function<T, R> worker;
+	private final Consumer<R> writer;
+	private final boolean ordered;
+	private final Semaphore inProcessing;
+	private final BlockingQueue<Result<R>> results = new LinkedBlockingQueue<>(); //bounded by inProcessing permits
+	private final ExecutorService workers;
+	private final Thread writerThread;
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+	private long sequence;
+	private boolean errorThrown;
+	private boolean closed;
+
+	/**
+	 * @param threads  number of worker threads
+	 * @param capacity max number of items in processing
+	 * @param ordered  pass results to writer in submit order
+	 * @param worker   function executed on worker threads
+	 * @param writer   consumer of results executed on writer thread
+	 */
+	public ParallelPipeline(int threads, int capacity, boolean ordered, Function<T, R> worker, Consumer<R> writer) {
+		this.worker = worker;
+		this.writer = writer;
+		this.ordered = ordered;
+		this.inProcessing = new Semaphore(capacity);
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "jsonflat-worker-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.writerThread = new Thread(this::write, "jsonflat-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Submits item to processing, blocks if capacity is exhausted
+	 * @param item item to process
+	 * @throws IOException first exception of worker or writer, unchecked exceptions are thrown as is
+	 */
+	public void submit(T item) throws IOException, InterruptedException {
+		throwError();
+		inProcessing.acquire();
+		final long number = sequence++;
+		workers.execute(() -> {
+			Result<R> result;
+			try {
+				result = new Result<>(number, worker.apply(item), null);
+			} catch (Throwable e) {
+				result = new Result<>(number, null, e);
+			}
+			results.add(result);
+		});
+	}
+
+	/**
+	 * Waits until all submitted items are written. If the waiting thread is interrupted, processing is stopped
+	 * and {@link InterruptedIOException} is thrown, the interrupt flag of the thread is kept
+	 * @throws IOException first exception of worker or writer, unchecked exceptions are thrown as is
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		workers.shutdown();
+		try {
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			results.add((Result<R>) END);
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			workers.shutdownNow();
+			writerThread.interrupt();
+			throw interrupted(e);
+		}
+		throwError();
+	}
+
+	private void throwError() throws IOException {
+		Throwable e = error.get();
+		if (e == null || errorThrown) return;
+		errorThrown = true;
+		if (e instanceof RuntimeException) throw (RuntimeException) e;
+		if (e instanceof Error) throw (Error) e;
+		if (e instanceof InterruptedException) throw interrupted(e); //writer thread is interrupted
+		throw e instanceof IOException ? (IOException) e : new IOException(e);
+	}
+
+	private static InterruptedIOException interrupted(Throwable cause) {
+		InterruptedIOException e = new InterruptedIOException("pipeline is interrupted");
+		e.initCause(cause);
+		return e;
+	}
+
+	private void write() {
+		Map<Long, Result<R>> pending = new HashMap<>();
+		long next = 0;
+		try {
+			Result<R> result;
+			while ((result = results.take()) != END) {
+				if (!ordered) {
+					write(result);
+					continue;
+				}
+				pending.put(result.number, result);
+				while ((result = pending.remove(next)) != null) {
+					write(result);
+					next++;
+				}
+			}
+		} catch (InterruptedException e) {
+			error.compareAndSet(null, e);
+		}
+	}
+
+	private void write(Result<R> result) {
+		try {
+			if (error.get() != null) return; //skip the rest after error
+			if (result.error != null) {
+				error.compareAndSet(null, result.error);
+			} else {
+				writer.accept(result.value);
+			}
+		} catch (Throwable e) {
+			error.compareAndSet(null, e);
+		} finally {
+			inProcessing.release();
+		}
+	}
+
+	private static class Result<R> {
+		final long number;
+		final R value;
+		final Throwable error;
+
+		Result(long number, R value, Throwable error) {
+			this.number = number;
+			this.value = value;
+			this.error = error;
+		}
+	}
+}
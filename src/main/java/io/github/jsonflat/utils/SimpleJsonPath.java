@@ -0,0 +1,139 @@
+package io.github.jsonflat.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Evaluator of simple JsonPath expressions directly on jackson tree.
+ * Supports property names, dotted chains and wildcards: "name", "a.b.c", "name[*]", "a[*].b", "$.a.*".
+ * Results are the same as JsonPath evaluation with ALWAYS_RETURN_LIST and SUPPRESS_EXCEPTIONS options.
+ * Filters, indexes, slices, deep scans and functions are not supported, see {@link #compile(String)}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @author Evgeniy Chukanov
+ */
+
+public class SimpleJsonPath implements Serializable {
+	private static final String WILDCARD = "[*]";
+	private static final String RESERVED_CHARS = ".[]()*'\"?@$,\\";
+
+	private final String[] segments; //property names, null for wildcard
+	private final boolean definite;  //path without wildcards returns at most one value
+
+	private SimpleJsonPath(List<String> segments) {
+		this.segments = segments.toArray(new String[0]);
+		this.definite = !segments.contains(null);
+	}
+
+	/**
+	 * Compiles path if it is supported
+	 * @param path JsonPath expression
+	 * @return compiled path or null if path should be evaluated by JsonPath
+	 */
+	public static SimpleJsonPath compile(String path) {
+		if (path == null) return null;
+		String p = path;
+		if (p.equals("$")) return new SimpleJsonPath(Collections.emptyList());
+		if (p.startsWith("$.")) {
+			p = p.substring(2);
+		} else if (p.startsWith("$") || p.startsWith("@")) {
+			return null;
+		}
+		if (p.isEmpty()) return null;
+		List<String> segments = new ArrayList<>();
+		int i = 0;
+		while (i < p.length()) {
+			if (p.startsWith(WILDCARD, i)) {
+				segments.add(null);
+				i += WILDCARD.length();
+			} else if (p.charAt(i) == '*') {
+				segments.add(null);
+				i++;
+			} else {
+				int end = i;
+				while (end < p.length() && p.charAt(end) != '.' && p.charAt(end) != '[') {
+					char c = p.charAt(end);
+					if (Character.isWhitespace(c) || RESERVED_CHARS.indexOf(c) >= 0) return null;
+					end++;
+				}
+				if (end == i) return null;
+				segments.add(p.substring(i, end));
+				i = end;
+			}
+			if (i < p.length()) {
+				if (p.charAt(i) == '.') {
+					i++;
+					if (i == p.length() || p.charAt(i) == '.') return null; //trailing dot or deep scan
+				} else if (!p.startsWith(WILDCARD, i)) {
+					return null;
+				}
+			}
+		}
+		return new SimpleJsonPath(segments);
+	}
+
+	/**
+	 * Evaluate path on json node
+	 * @param node root node of evaluation
+	 * @return list of found values, empty if nothing found
+	 */
+	public List<JsonNode> read(JsonNode node) {
+		if (definite) {
+			JsonNode current = node;
+			for (String segment : segments) {
+				if (!current.isObject()) return Collections.emptyList();
+				current = current.get(segment);
+				if (current == null) return Collections.emptyList();
+			}
+			return Collections.singletonList(current);
+		}
+		List<JsonNode> result = new ArrayList<>();
+		collect(node, 0, result);
+		return result;
+	}
+
+	public boolean isDefinite() {
+		return definite;
+	}
+
+	/**
+	 * @return property names of path, null for wildcards
+	 */
+	public List<String> getSegments() {
+		return Collections.unmodifiableList(Arrays.asList(segments));
+	}
+
+	private void collect(JsonNode node, int index, List<JsonNode> result) {
+		if (index == segments.length) {
+			result.add(node);
+			return;
+		}
+		String segment = segments[index];
+		if (segment == null) {
+			if (node.isObject() || node.isArray()) {
+				Iterator<JsonNode> elements = node.elements();
+				while (elements.hasNext()) {
+					collect(elements.next(), index + 1, result);
+				}
+			}
+		} else if (node.isObject()) {
+			JsonNode child = node.get(segment);
+			if (child != null) {
+				collect(child, index + 1, result);
+			}
+		}
+	}
+}
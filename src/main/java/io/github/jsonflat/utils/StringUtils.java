@@ -27,41 +27,32 @@ public final class StringUtils {
 	}
 
 	/**
-	 * The main function that checks if two given strings match. The first string may contain wildcard characters
-	 * based on https://www.geeksforgeeks.org/wildcard-character-matching/
+	 * Checks if text matches wildcard pattern: '*' matches any sequence of chars, '?' matches any single char.
+	 * Greedy matching with backtracking to the last '*' takes O(pattern * text) time at worst.
+	 * To match by many patterns use {@link GlobMatcher}
 	 **/
 	public static boolean match(String pattern, String text) {
-		pattern = deDuplicateChars(pattern, '*');
-		// If we reach at the end of both strings,
-		// we are done
-		if (pattern.length() == 0 && text.length() == 0)
-			return true;
-
-		// Make sure that the characters after '*'
-		// are present in second string.
-		// This function assumes that the first
-		// string will not contain two consecutive '*'
-		if (pattern.length() > 1 && pattern.charAt(0) == '*' &&
-				text.length() == 0)
-			return false;
-
-		if (pattern.length() > 0 && pattern.charAt(0) == '?' && text.length() == 0) return false;
-
-		// If the first string contains '?',
-		// or current characters of both strings match
-		if ((pattern.length() > 0 && pattern.charAt(0) == '?') ||
-				(pattern.length() != 0 && text.length() != 0 &&
-						pattern.charAt(0) == text.charAt(0)))
-			return match(pattern.substring(1),
-					text.substring(1));
-
-		// If there is *, then there are two possibilities
-		// a) We consider current character of second string
-		// b) We ignore current character of second string.
-		if (pattern.length() > 0 && pattern.charAt(0) == '*')
-			return match(pattern.substring(1), text) ||
-					match(pattern, text.substring(1));
-		return false;
+		if (isBlank(pattern)) pattern = "";
+		int p = 0;
+		int t = 0;
+		int star = -1; //position of last '*' in pattern
+		int mark = 0;  //position in text matched by last '*'
+		while (t < text.length()) {
+			if (p < pattern.length() && pattern.charAt(p) == '*') {
+				star = p++;
+				mark = t;
+			} else if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == text.charAt(t))) {
+				p++;
+				t++;
+			} else if (star >= 0) {
+				p = star + 1;
+				t = ++mark;
+			} else {
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*') p++;
+		return p == pattern.length();
 	}
 
 	public static String deDuplicateChars(String s, char c) {
@@ -89,17 +80,39 @@ public final class StringUtils {
 	}
 
 	public static String preprocessLog(String line) {
-		int index = line.indexOf('{');
-		if (index == 0) return line;
-		int index2 = line.indexOf('[');
-		if (index2 == 0) return line;
-		if (index2 > 0) {
-			index = Math.min(index, index2);
+		int index = jsonOffset(line, 0, line.length());
+		return index > 0 ? line.substring(index) : line;
+	}
+
+	/**
+	 * Finds start of json in log line without copying it, see {@link #preprocessLog(String)}.
+	 * Json starts at the first '{' or at the first '[' before it. The line is not cut if there is no '{'
+	 * @param line  text
+	 * @param start start of line in text
+	 * @param end   end of line in text
+	 * @return offset of json in text, start if line is not cut
+	 */
+	public static int jsonOffset(CharSequence line, int start, int end) {
+		int bracket = -1;
+		for (int i = start; i < end; i++) {
+			char c = line.charAt(i);
+			if (c == '{') return bracket >= 0 ? bracket : i;
+			if (c == '[' && bracket < 0) bracket = i;
 		}
-		if (index > 0) {
-			return line.substring(index);
+		return start;
+	}
+
+	/**
+	 * Same as {@link #jsonOffset(CharSequence, int, int)} for UTF-8 or other ASCII compatible bytes
+	 */
+	public static int jsonOffset(byte[] line, int start, int end) {
+		int bracket = -1;
+		for (int i = start; i < end; i++) {
+			byte b = line[i];
+			if (b == '{') return bracket >= 0 ? bracket : i;
+			if (b == '[' && bracket < 0) bracket = i;
 		}
-		return line;
+		return start;
 	}
 
 	public static String escapeQuotes(String text) {
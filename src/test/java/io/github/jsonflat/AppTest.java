@@ -0,0 +1,193 @@
+package io.github.jsonflat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class AppTest {
+  private static final int LINES = 300;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path input;
+  private final List<String> csvRows = new ArrayList<>();  //rows of all files in order of files
+  private final List<String> jsonRows = new ArrayList<>();
+
+  @Before
+  public void files() throws IOException {
+    input = folder.newFolder("input").toPath();
+    //the first line defines schema, later lines have extra fields
+    int id = 0;
+    for (String name : new String[]{"a.jsonl", "b.jsonl", "c/d.jsonl", "e.jsonl"}) {
+      List<String> lines = new ArrayList<>();
+      for (int i = 0; i < LINES; i++, id++) {
+        lines.add((i % 3 == 0 ? "2020-01-01 INFO " : "") + "{\"id\":" + id + ",\"v\":\"" + name + "\"" + (id > 0 ? ",\"x\":" + i : "") + "}");
+        csvRows.add(id + ";\"" + name + "\"");
+        jsonRows.add("{\"id\":" + id + ",\"v\":\"" + name + "\"" + (id > 0 ? ",\"x\":" + i : "") + "}");
+      }
+      if (name.startsWith("b")) lines.add(1, "not json");
+      Path file = input.resolve(name);
+      Files.createDirectories(file.getParent());
+      Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void mergedOutput() throws IOException {
+    List<String> csv = new ArrayList<>();
+    csv.add("id;v");
+    csv.addAll(csvRows);
+    for (String threads : new String[]{"1", "2", "3", "8"}) {
+      assertEquals(threads, csv, run("-i", input.toString(), "-n", "-csv", "-t", threads));
+    }
+    assertEquals(csv, run("-i", input.toString(), "-n", "-csv"));
+    //schema is merged with every line
+    assertEquals(jsonRows, run("-i", input.toString()));
+    assertEquals(jsonRows, run("-i", input.toString(), "-t", "3"));
+    List<String> fixed = jsonRows.stream().map(r -> r.replaceAll(",\"x\":\\d+", "")).collect(Collectors.toList());
+    assertEquals(fixed, run("-i", input.toString(), "-n", "-t", "4"));
+    //temporary parts are created next to output and deleted
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      assertFalse(files.anyMatch(f -> f.toString().endsWith(".part")));
+    }
+  }
+
+  @Test
+  public void outputDirectory() throws IOException {
+    for (String threads : new String[]{"1", "3"}) {
+      File directory = new File(folder.getRoot(), "od" + threads);
+      App.main(new String[]{"-i", input.toString(), "-n", "-csv", "-t", threads, "-od", directory.getPath()});
+      int file = 0;
+      for (String name : new String[]{"a.jsonl", "b.jsonl", "d.jsonl", "e.jsonl"}) {
+        List<String> csv = new ArrayList<>();
+        csv.add("id;v");
+        csv.addAll(csvRows.subList(file * LINES, (file + 1) * LINES));
+        assertEquals(name, csv, Files.readAllLines(new File(directory, name + ".csv").toPath()));
+        file++;
+      }
+      assertEquals(4, directory.list().length);
+    }
+  }
+
+  @Test
+  public void rejectedDocuments() throws IOException {
+    Path schema = folder.newFile("schema.json").toPath();
+    Files.write(schema, "{\"columns\":[{\"name\":\"id\"},{\"name\":\"a\",\"path\":\"a[*]\"}]}".getBytes(StandardCharsets.UTF_8));
+    Path lines = folder.newFile("lines.jsonl").toPath();
+    Files.write(lines, Arrays.asList(
+      "log {\"id\":0,\"a\":[1,2,3,4]}",
+      "[{\"id\":1,\"a\":[1,2]},{\"id\":2,\"a\":[1,2,3,4,5]},{\"id\":3,\"a\":[1]}]"
+    ), StandardCharsets.UTF_8);
+    File rejects = new File(folder.getRoot(), "rejects.jsonl");
+    assertEquals(Arrays.asList("{\"id\":1,\"a\":1}", "{\"id\":1,\"a\":2}", "{\"id\":3,\"a\":1}"),
+      run("-i", lines.toString(), "-s", schema.toString(), "-maxRows", "3", "-rejects", rejects.getPath()));
+    //only the rejected element of array line is written
+    assertEquals(Arrays.asList("{\"id\":0,\"a\":[1,2,3,4]}", "{\"id\":2,\"a\":[1,2,3,4,5]}"), Files.readAllLines(rejects.toPath()));
+
+    //reject policy without output of rejected documents is an error
+    File output = new File(folder.getRoot(), "output");
+    App.main(new String[]{"-i", lines.toString(), "-s", schema.toString(), "-maxRows", "3", "-overLimit", "reject", "-o", output.getPath()});
+    assertFalse(output.exists());
+  }
+
+  @Test
+  public void arrayFirstLine() throws IOException {
+    Path lines = folder.newFile("array.jsonl").toPath();
+    Files.write(lines, Arrays.asList(
+      "[{\"id\":1},{\"id\":2,\"x\":1}]",
+      "{\"id\":3,\"y\":2}",
+      "[]",
+      "[{\"id\":4,\"x\":3,\"y\":4}]"
+    ), StandardCharsets.UTF_8);
+    //schema of the first line is defined by its first element
+    List<String> fixed = Arrays.asList("id", "1", "2", "3", "4");
+    assertEquals(fixed, run("-i", lines.toString(), "-n", "-csv"));
+    assertEquals(fixed, run("-i", lines.toString(), "-n", "-csv", "-t", "2"));
+    //schema is merged with every element
+    List<String> auto = Arrays.asList("{\"id\":1}", "{\"id\":2,\"x\":1}", "{\"id\":3,\"y\":2}", "{\"id\":4,\"x\":3,\"y\":4}");
+    assertEquals(auto, run("-i", lines.toString()));
+    assertEquals(auto, run("-i", lines.toString(), "-t", "2"));
+  }
+
+  @Test
+  public void prefixColumns() throws IOException {
+    List<String> csv = new ArrayList<>();
+    csv.add("date;level;id;v");
+    for (int i = 0; i < LINES; i++) csv.add((i % 3 == 0 ? "\"2020-01-01\";\"INFO\";" : ";;") + csvRows.get(i));
+    Path a = input.resolve("a.jsonl");
+    assertEquals(csv, run("-i", a.toString(), "-n", "-csv", "-p", "date,level"));
+    assertEquals(csv, run("-i", a.toString(), "-n", "-csv", "-p", "date,level", "-t", "2"));
+    //names of prefix fields can't be names of columns
+    assertEquals(Collections.emptyList(), run("-i", a.toString(), "-n", "-csv", "-p", "date,id"));
+    assertEquals(Collections.emptyList(), run("-i", a.toString(), "-p", "v"));
+    //column of merged schema, "x" is added by the second line
+    List<String> first = Collections.singletonList("{\"date\":\"2020-01-01\",\"x\":\"INFO\",\"id\":0,\"v\":\"a.jsonl\"}");
+    assertEquals(first, run("-i", a.toString(), "-p", "date,x"));
+    assertEquals(first, run("-i", a.toString(), "-p", "date,x", "-t", "2"));
+  }
+
+  @Test
+  public void parseStats() throws IOException {
+    Path lines = folder.newFile("stats.jsonl").toPath();
+    Files.write(lines, Arrays.asList("{\"id\":1}", "not json", "", "7", "[{\"id\":2},{\"id\":3}]", "{\"id\":4", "\"text\""), StandardCharsets.UTF_8);
+    //every line of auto schema is parsed or failed
+    for (String threads : new String[]{"1", "2"}) {
+      PrintStream err = System.err;
+      ByteArrayOutputStream stats = new ByteArrayOutputStream();
+      System.setErr(new PrintStream(stats, true, "UTF-8"));
+      try {
+        assertEquals(Arrays.asList("{\"id\":1}", "{\"id\":2}", "{\"id\":3}"), run("-i", lines.toString(), "-stats", "-t", threads));
+      } finally {
+        System.setErr(err);
+      }
+      assertTrue(stats.toString("UTF-8").startsWith("Documents: 2 parsed, 5 parse failures"));
+    }
+  }
+
+  private List<String> run(String... args) throws IOException {
+    File output = new File(folder.getRoot(), "output");
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    arguments.add("-o");
+    arguments.add(output.getPath());
+    App.main(arguments.toArray(new String[0]));
+    List<String> result = Files.readAllLines(output.toPath());
+    Files.delete(output.toPath());
+    return result;
+  }
+}
@@ -1,14 +1,19 @@
 package io.github.jsonflat;
 
 import org.junit.Test;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.AutoSchemaMerger;
 import io.github.jsonflat.schema.Schema;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static io.github.jsonflat.Transformer.MAPPER;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * 
@@ -78,6 +83,28 @@ public class AutoSchemaEveryLineTest {
           ), result
         );
     }
+    @Test
+    public void testMergeAfterTransformerCreated() throws IOException {
+        String jsonText1 = "{\"two\":[{\"twenty3\":123}],\"three\": 13}";
+        String jsonText2 = "{\"one\":21,\"two\":[{\"twenty1\":221}]}";
+        Schema schema1 = AutoSchemaFactory.builder()
+          .build()
+          .generate(jsonText1);
+        Transformer transformer = new Transformer(schema1);
+        List<String> result = transformer.transform(jsonText1);
+
+        schema1.merge(AutoSchemaFactory.builder()
+          .build()
+          .generate(jsonText2));
+        result.addAll(transformer.transform(jsonText2));
+        assertEquals(
+          Arrays.asList(
+            "{\"two_twenty3\":123,\"three\":13}",
+            "{\"two_twenty1\":221,\"one\":21}"
+          ), result
+        );
+    }
+
     @Test
     public void testMergeSchema() throws IOException {
         String json1 = "{\"application\":{\"name\":\"app\",\"operation-fail\":false,\"properties\":[{\"name\":\"A\",\"granted\":true},{\"name\":\"B\",\"granted\":true},{\"name\":\"C\",\"granted\":true,\"cancelled\":true}]}}";
@@ -108,4 +135,37 @@ public class AutoSchemaEveryLineTest {
 
     }
 
+    @Test
+    public void testMergeByShape() throws IOException {
+        List<String> documents = Arrays.asList(
+          "{\"one\":1,\"two\":[1,2]}",
+          "{\"one\":\"x\",\"two\":[3]}",
+          "{\"one\":1,\"two\":[{\"a\":1},{\"a\":2},{\"b\":3}]}",
+          "{\"one\":null,\"two\":[{\"a\":1},{\"b\":2}]}",
+          "{\"one\":2,\"two\":[5,6]}"
+        );
+        assertEquals(AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(0))), AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(1))));
+        assertEquals(AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(2))), AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(3))));
+        assertNotEquals(AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(0))), AutoSchemaMerger.fingerprint(MAPPER.readTree(documents.get(2))));
+        assertNotEquals(
+          AutoSchemaMerger.fingerprint(MAPPER.readTree("{\"a\":1,\"b\":2}")),
+          AutoSchemaMerger.fingerprint(MAPPER.readTree("{\"b\":1,\"a\":2}"))
+        );
+
+        AutoSchemaFactory factory = AutoSchemaFactory.builder().build();
+        AutoSchemaMerger merger = new AutoSchemaMerger(factory);
+        Schema merged = factory.generate(documents.get(0));
+        Schema expected = factory.generate(documents.get(0));
+        List<Boolean> generated = new ArrayList<>();
+        for (String document : documents) {
+            JsonNode json = MAPPER.readTree(document);
+            generated.add(merger.merge(merged, json));
+            expected.merge(factory.generate(json));
+            assertEquals(document, expected.getResultNames(), merged.getResultNames());
+            assertEquals(document, new Transformer(expected).transform(json), new Transformer(merged).transform(json));
+        }
+        //the last document changes group of "two" back, so its shape is merged again
+        assertEquals(Arrays.asList(true, false, true, false, true), generated);
+    }
+
 }
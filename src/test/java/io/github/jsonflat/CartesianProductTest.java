@@ -0,0 +1,97 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.CartesianProduct;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class CartesianProductTest {
+
+  @Test
+  public void product() {
+    List<List<String>> lists = Arrays.asList(
+      Arrays.asList("a", "b"),
+      Collections.emptyList(),
+      Collections.singletonList("c"),
+      Arrays.asList("d", "e", "f")
+    );
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList("a", "c", "d"),
+      Arrays.asList("b", "c", "d"),
+      Arrays.asList("a", "c", "e"),
+      Arrays.asList("b", "c", "e"),
+      Arrays.asList("a", "c", "f"),
+      Arrays.asList("b", "c", "f")
+    );
+    assertEquals(expected, CartesianProduct.cartesianProduct(lists));
+    assertEquals(6, CartesianProduct.size(lists));
+    assertEquals(expected, CartesianProduct.stream(lists).map(row -> String.join("", row)).map(this::split).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void empty() {
+    assertEquals(Collections.emptyList(), CartesianProduct.cartesianProduct(Collections.emptyList()));
+    assertEquals(Collections.emptyList(), CartesianProduct.cartesianProduct(Arrays.asList(Collections.emptyList(), Collections.emptyList())));
+    assertEquals(0, CartesianProduct.stream(Collections.emptyList()).count());
+    assertEquals(Collections.singletonList(Collections.singletonList("a")),
+      CartesianProduct.cartesianProduct(Collections.singletonList(Collections.singletonList("a"))));
+  }
+
+  @Test
+  public void rows() {
+    List<List<String>> lists = Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("c"), Arrays.asList("d", "e"));
+    //rows of iterator are views of the same index vector
+    Iterator<List<String>> iterator = CartesianProduct.iterator(lists);
+    List<String> first = iterator.next();
+    assertEquals(Arrays.asList("a", "c", "d"), first);
+    assertTrue(iterator.hasNext());
+    assertTrue(iterator.hasNext());
+    assertSame(first, iterator.next());
+    assertEquals(Arrays.asList("b", "c", "d"), first);
+    iterator.next();
+    iterator.next();
+    assertEquals(Arrays.asList("b", "c", "e"), first);
+    assertFalse(iterator.hasNext());
+    try {
+      iterator.next();
+      fail();
+    } catch (NoSuchElementException e) {
+      //expected
+    }
+    //rows of stream are copies
+    assertEquals(CartesianProduct.cartesianProduct(lists), CartesianProduct.stream(lists).collect(Collectors.toList()));
+    assertEquals(Collections.singletonList(Arrays.asList("a", "c")),
+      CartesianProduct.stream(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("c"))).collect(Collectors.toList()));
+  }
+
+  private List<String> split(String s) {
+    return Arrays.stream(s.split("")).collect(Collectors.toList());
+  }
+}
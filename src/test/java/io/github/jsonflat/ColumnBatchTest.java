@@ -0,0 +1,142 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.JsonSchemaFactory;
+import io.github.jsonflat.schema.Schema;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static io.github.jsonflat.Transformer.MAPPER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class ColumnBatchTest {
+  @Test
+  public void typesTest() throws IOException {
+    String schemaText = "{\n" +
+      "  \"columns\": [\n" +
+      "    {\"name\": \"id\"}, {\"name\": \"level\"}, {\"name\": \"score\"}, {\"name\": \"ok\"}, {\"name\": \"mixed\"},\n" +
+      "    {\"name\": \"tags\", \"path\": \"tags[*]\", \"group\": \"COLUMNS\"},\n" +
+      "    {\"name\": \"required\", \"skipRowIfEmpty\": true}\n" +
+      "  ]\n" +
+      "}\n";
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(schemaText));
+    ColumnBatch batch = transformer.transformBatch(Arrays.asList(
+      MAPPER.readTree("{\"id\":1,\"level\":\"INFO\",\"score\":1,\"ok\":true,\"mixed\":1,\"required\":1,\"tags\":[\"a\",\"b\"]}"),
+      MAPPER.readTree("{\"id\":2,\"level\":\"WARN\",\"score\":2.5,\"mixed\":\"x\",\"required\":1}"),
+      MAPPER.readTree("{\"id\":3,\"level\":\"INFO\"}"),
+      null,
+      MAPPER.readTree("{\"id\":4,\"level\":\"INFO\",\"ok\":false,\"mixed\":{\"a\":1},\"required\":1}")
+    ));
+
+    assertEquals(3, batch.getRowCount());
+    assertEquals(Arrays.asList("id", "level", "score", "ok", "mixed", "tags", "required", "tags_0", "tags_1"), batch.getNames());
+
+    ColumnVector id = batch.getColumn("id");
+    assertEquals(ColumnVector.Type.LONG, id.getType());
+    assertArrayEquals(new long[]{1, 2, 4}, id.getLongs());
+
+    ColumnVector level = batch.getColumn("level");
+    assertEquals(ColumnVector.Type.STRING, level.getType());
+    assertEquals(Arrays.asList("INFO", "WARN"), level.getDictionary());
+    assertArrayEquals(new int[]{0, 1, 0}, level.getCodes());
+
+    ColumnVector score = batch.getColumn("score");
+    assertEquals(ColumnVector.Type.DOUBLE, score.getType());
+    assertEquals(1.0, score.getDoubles()[0], 0);
+    assertEquals(2.5, score.getDoubles()[1], 0);
+    assertTrue(score.isNull(2));
+
+    ColumnVector ok = batch.getColumn("ok");
+    assertEquals(ColumnVector.Type.BOOLEAN, ok.getType());
+    assertArrayEquals(new long[]{0b101}, ok.getNonNulls());
+    assertFalse(ok.getBooleans()[2]);
+
+    ColumnVector mixed = batch.getColumn("mixed");
+    assertEquals(ColumnVector.Type.STRING, mixed.getType());
+    assertEquals(Arrays.asList("1", "x", "{\"a\":1}"), Arrays.asList(mixed.getString(0), mixed.getString(1), mixed.getString(2)));
+
+    assertEquals(ColumnVector.Type.NULL, batch.getColumn("tags").getType());
+    assertEquals("b", batch.getColumn("tags_1").getString(0));
+    assertTrue(batch.getColumn("tags_1").isNull(1));
+  }
+
+  @Test
+  public void rowsTest() throws IOException {
+    Random random = new Random(19);
+    List<JsonNode> documents = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      documents.add(MAPPER.readTree("{\"a\":" + value(random) + ",\"b\":{\"c\":" + value(random) + ",\"d\":[" +
+        value(random) + "," + value(random) + "]},\"e\":[{\"f\":" + value(random) + "},{\"f\":" + value(random) + ",\"g\":" + value(random) + "}]}"));
+    }
+    AutoSchemaFactory factory = AutoSchemaFactory.builder().build();
+    Schema schema = factory.generate(documents.get(0));
+    documents.forEach(d -> schema.merge(factory.generate(d)));
+    Transformer transformer = new Transformer(schema);
+
+    List<String> expected = new ArrayList<>();
+    for (JsonNode document : documents) {
+      for (JsonNode row : transformer.transform(document)) {
+        expected.add(row.toString());
+      }
+    }
+    ColumnBatch batch = transformer.transformBatch(documents);
+    assertEquals(expected.size(), batch.getRowCount());
+    for (int row = 0; row < batch.getRowCount(); row++) {
+      JsonNode expectedRow = MAPPER.readTree(expected.get(row));
+      for (ColumnVector column : batch.getColumns()) {
+        JsonNode value = expectedRow.get(column.getName());
+        String message = expected.get(row) + " " + column.getName();
+        if (value == null || value.isNull()) {
+          assertTrue(message, column.isNull(row));
+        } else {
+          assertFalse(message, column.isNull(row));
+          assertEquals(message, text(value, column.getType()), text(column, row));
+        }
+      }
+    }
+  }
+
+  private static String value(Random random) {
+    switch (random.nextInt(6)) {
+      case 0: return "null";
+      case 1: return String.valueOf(random.nextInt(10));
+      case 2: return String.valueOf(random.nextInt(10) / 4.0);
+      case 3: return String.valueOf(random.nextBoolean());
+      case 4: return "\"s" + random.nextInt(5) + "\"";
+      default: return "[" + random.nextInt(3) + "]";
+    }
+  }
+
+  private static String text(JsonNode value, ColumnVector.Type type) {
+    if (type == ColumnVector.Type.DOUBLE) return Double.toString(value.doubleValue());
+    return value.isContainerNode() ? value.toString() : value.asText();
+  }
+
+  private static String text(ColumnVector column, int row) {
+    switch (column.getType()) {
+      case LONG: return Long.toString(column.getLongs()[row]);
+      case DOUBLE: return Double.toString(column.getDoubles()[row]);
+      case BOOLEAN: return Boolean.toString(column.getBooleans()[row]);
+      default: return column.getString(row);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.InputLine;
+import io.github.jsonflat.utils.FileLines;
+import io.github.jsonflat.utils.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class FileLinesTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void lines() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append("2020-01-01 INFO {\"id\":").append(i).append(",\"s\":\"\u00fc\u20ac").append(i).append("\"}");
+      if (i % 100 == 0) text.append(String.join("", Collections.nCopies(100000, "x")));
+      text.append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+      if (i % 7 == 0) text.append("\n");
+    }
+    text.append("{\"last\":true}");
+    assertLines(text.toString());
+    assertLines(text.append("\r\n").toString());
+    assertLines("");
+    assertLines("\n\r\n\r");
+  }
+
+  @Test
+  public void skipLogPrefix() throws Exception {
+    for (String line : new String[]{"2020-01-01 {\"a\":[1]}", "ts [1,{}]", "{\"a\":1}", "no json", ""}) {
+      Path path = folder.newFile().toPath();
+      Files.write(path, line.getBytes(StandardCharsets.UTF_8));
+      try (Stream<InputLine> lines = FileLines.lines(path)) {
+        List<String> result = lines.map(l -> l.skipLogPrefix().toString()).collect(Collectors.toList());
+        assertEquals(line.isEmpty() ? Collections.emptyList() : Collections.singletonList(StringUtils.preprocessLog(line)), result);
+      }
+    }
+  }
+
+  private void assertLines(String text) throws Exception {
+    Path path = folder.newFile().toPath();
+    Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+    List<String> expected = new BufferedReader(new StringReader(text)).lines().collect(Collectors.toList());
+    try (Stream<InputLine> lines = FileLines.lines(path)) {
+      assertEquals(expected, lines.map(InputLine::toString).collect(Collectors.toList()));
+    }
+  }
+}
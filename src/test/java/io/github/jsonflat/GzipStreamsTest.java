@@ -0,0 +1,162 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.GzipInputStream;
+import io.github.jsonflat.utils.ParallelGzipOutputStream;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class GzipStreamsTest {
+
+  @Test
+  public void parallelOutput() throws Exception {
+    byte[] data = text(ParallelGzipOutputStream.BLOCK_SIZE * 7 + 123);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 3)) {
+      out.write(data, 0, 1000);
+      out.write(data[1000]);
+      out.write(data, 1001, data.length - 1001);
+    }
+    assertArrayEquals(data, read(new GzipInputStream(new ByteArrayInputStream(compressed.toByteArray()))));
+    //members are a valid gzip file for other readers
+    assertArrayEquals(data, read(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))));
+  }
+
+  @Test
+  public void emptyOutput() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    new ParallelGzipOutputStream(compressed, 2).close();
+    assertTrue(compressed.size() > 0);
+    assertEquals(0, read(new GzipInputStream(new ByteArrayInputStream(compressed.toByteArray()))).length);
+  }
+
+  @Test
+  public void members() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    compressed.write(gzip(bytes("first\n")));
+    //header with extra field, file name, comment and header crc
+    compressed.write(new byte[]{0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, 3, 2, 0, 'x', 'y', 'f', '.', 'j', 0, 'c', 0, 0, 0});
+    byte[] second = gzip(bytes("second\n"));
+    compressed.write(second, 10, second.length - 10);
+    compressed.write(gzip(new byte[0]));
+    compressed.write(gzip(bytes("third")));
+    //pipe without available bytes between members
+    InputStream pipe = new FilterInputStream(new ByteArrayInputStream(compressed.toByteArray())) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return super.read(b, off, Math.min(len, 5));
+      }
+
+      @Override
+      public int available() {
+        return 0;
+      }
+    };
+    assertEquals("first\nsecond\nthird", new String(read(new GzipInputStream(pipe)), StandardCharsets.UTF_8));
+    //bytes after the last member are ignored
+    compressed.write(new byte[]{0, 0, 0});
+    assertEquals("first\nsecond\nthird", new String(read(new GzipInputStream(new ByteArrayInputStream(compressed.toByteArray()))), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void corruptInput() throws Exception {
+    byte[] compressed = gzip(text(10000));
+    byte[] crc = compressed.clone();
+    crc[crc.length - 8] ^= 1;
+    assertCorrupt(crc);
+    assertCorrupt(Arrays.copyOf(compressed, compressed.length - 3));
+    try {
+      new GzipInputStream(new ByteArrayInputStream(bytes("{\"a\":1}")));
+      fail();
+    } catch (ZipException e) {
+      //not gzip
+    }
+  }
+
+  @Test
+  public void isGzip() throws Exception {
+    InputStream gzip = new BufferedInputStream(new ByteArrayInputStream(gzip(bytes("{}"))));
+    assertTrue(GzipInputStream.isGzip(gzip));
+    assertEquals(0x1f, gzip.read());
+    InputStream json = new BufferedInputStream(new ByteArrayInputStream(bytes("{}")));
+    assertFalse(GzipInputStream.isGzip(json));
+    assertEquals('{', json.read());
+    assertFalse(GzipInputStream.isGzip(new BufferedInputStream(new ByteArrayInputStream(new byte[0]))));
+  }
+
+  private static void assertCorrupt(byte[] compressed) throws IOException {
+    try {
+      read(new GzipInputStream(new ByteArrayInputStream(compressed)));
+      fail();
+    } catch (ZipException | EOFException e) {
+      //expected
+    }
+  }
+
+  private static byte[] text(int size) {
+    Random random = new Random(1);
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (random.nextInt(10) == 0 ? '\n' : 'a' + random.nextInt(26));
+    }
+    return data;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+      out.write(data);
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] read(InputStream in) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (InputStream input = in) {
+      byte[] buffer = new byte[777];
+      int n;
+      while ((n = input.read(buffer)) >= 0) {
+        result.write(buffer, 0, n);
+      }
+    }
+    return result.toByteArray();
+  }
+}
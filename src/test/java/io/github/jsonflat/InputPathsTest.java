@@ -0,0 +1,116 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.InputPaths;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class InputPathsTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path root;
+  private Path a;
+  private Path b;
+  private Path log;
+  private Path nested;
+  private Path deep;
+
+  @Before
+  public void files() throws IOException {
+    root = folder.getRoot().toPath();
+    b = file("b.json");
+    a = file("a.json");
+    log = file("c.log");
+    nested = file("sub/d.json");
+    deep = file("sub/deep/e.json");
+  }
+
+  @Test
+  public void file() throws IOException {
+    assertEquals(Collections.singletonList(log), resolve(log.toString()));
+  }
+
+  @Test
+  public void directory() throws IOException {
+    assertEquals(Arrays.asList(a, b, log, nested, deep), resolve(root.toString()));
+    assertEquals(Arrays.asList(nested, deep), resolve(root.resolve("sub").toString()));
+  }
+
+  @Test
+  public void glob() throws IOException {
+    assertEquals(Arrays.asList(a, b), resolve(root + "/*.json"));
+    assertEquals(Arrays.asList(a, b, nested, deep), resolve(root + "/**.json"));
+    assertEquals(Arrays.asList(nested, deep), resolve(root + "/**/*.json"));
+    assertEquals(Collections.singletonList(nested), resolve(root + "/s?b/*.json"));
+    assertEquals(Arrays.asList(a, log), resolve(root + "/{a.json,c.log}"));
+  }
+
+  @Test
+  public void order() throws IOException {
+    //files of argument are sorted, arguments keep their order
+    assertEquals(Arrays.asList(log, nested, deep, a, b), resolve(log.toString(), root + "/sub", root + "/*.json"));
+  }
+
+  @Test
+  public void duplicates() throws IOException {
+    assertEquals(Arrays.asList(nested, a, b, log, deep), resolve(nested.toString(), root + "/*.json", root.toString(), a.toString()));
+  }
+
+  @Test
+  public void noMatch() throws IOException {
+    for (String argument : new String[]{root + "/*.csv", root + "/none/*.json", root + "/none.json"}) {
+      try {
+        resolve(argument);
+        fail(argument);
+      } catch (NoSuchFileException e) {
+        //expected
+      }
+    }
+    try {
+      resolve(a.toString(), root + "/*.csv");
+      fail();
+    } catch (NoSuchFileException e) {
+      assertEquals(root + "/*.csv", e.getFile());
+    }
+  }
+
+  private Path file(String name) throws IOException {
+    Path path = root.resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.write(path, "{}".getBytes());
+    return path;
+  }
+
+  private static List<Path> resolve(String... arguments) throws IOException {
+    return InputPaths.resolve(Arrays.asList(arguments));
+  }
+}
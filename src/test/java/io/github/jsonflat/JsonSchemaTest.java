@@ -2,6 +2,7 @@ package io.github.jsonflat;
 
 import io.github.jsonflat.schema.JsonSchemaFactory;
 import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.schema.converter.CachedConverter;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -727,4 +728,88 @@ public class JsonSchemaTest {
 
   }
 
+  @Test
+  public void filterExistJsonPathTest() throws IOException {
+    //path with filter expression is evaluated by JsonPath compiled once
+    String schemaText = "{\n" +
+      "  \"filter\": {\"class\":\"io.github.jsonflat.schema.filter.Exist\", \"path\":\"$.two[?(@.twenty3)]\"},\n" +
+      "  \"columns\": [{\"name\": \"two\", \"path\": \"two[*]\", \"columns\": [{\"name\": \"twenty\"}]}]\n" +
+      "}\n";
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(schemaText));
+    List<String> result = new ArrayList<>();
+    result.addAll(transformer.transform("{\"two\":[{\"twenty\":121},{\"twenty\":122}]}"));
+    result.addAll(transformer.transform("{\"two\":[{\"twenty\":221},{\"twenty3\":23}]}"));
+    assertEquals(Collections.singletonList("{\"two_twenty\":221}"), result);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToDateWrongZone() throws IOException {
+    //converters are prepared when transformer is built
+    String schemaText = "{\n" +
+      "  \"columns\": [\n" +
+      "    {\"name\": \"twenty\", \"converter\":{\"class\":\"io.github.jsonflat.schema.converter.ToDatetime\",\"zone\":\"Nowhere/Nothing\"}}\n" +
+      "  ]\n" +
+      "}\n";
+    new Transformer(JsonSchemaFactory.builder().build().generate(schemaText));
+  }
+
+  @Test
+  public void testConverterCache() throws IOException {
+    String schemaText = "{\n" +
+      "  \"columns\": [\n" +
+      "    {\"name\": \"t\", \"converterCache\": 2, \"converter\":{\"class\":\"io.github.jsonflat.schema.converter.ToDatetime\",\"pattern\":\"yyyy-MM-dd\"}}\n" +
+      "  ]\n" +
+      "}\n";
+    Schema schema = JsonSchemaFactory.builder().build().generate(schemaText);
+    Transformer transformer = new Transformer(schema);
+    List<String> result = new ArrayList<>();
+    for (long t : new long[]{0, 0, 86400000, 0, 172800000, 172800000, 0, 86400000}) {
+      result.addAll(transformer.transform("{\"t\":" + t + "}"));
+    }
+    assertEquals(Arrays.asList(
+      "{\"t\":\"1970-01-01\"}", "{\"t\":\"1970-01-01\"}", "{\"t\":\"1970-01-02\"}", "{\"t\":\"1970-01-01\"}",
+      "{\"t\":\"1970-01-03\"}", "{\"t\":\"1970-01-03\"}", "{\"t\":\"1970-01-01\"}", "{\"t\":\"1970-01-02\"}"
+    ), result);
+    CachedConverter cache = schema.getColumn("t").getCachedConverter();
+    //the third value evicts the second one as the first one is referenced, the second one is converted again
+    assertEquals(4, cache.getHits());
+    assertEquals(4, cache.getMisses());
+    assertEquals(2, cache.getSize());
+
+    //the cache is kept when execution plan is recompiled
+    schema.merge(JsonSchemaFactory.builder().build().generate("{\"columns\": [{\"name\": \"u\"}]}"));
+    transformer.transform("{\"t\":172800000}");
+    assertEquals(cache, schema.getColumn("t").getCachedConverter());
+    assertEquals(5, cache.getHits());
+  }
+
+  @Test
+  public void testTypedConverters() throws IOException {
+    String converter = "io.github.jsonflat.schema.converter.";
+    String schemaText = "{\n" +
+      "  \"columns\": [\n" +
+      "    {\"name\": \"l\", \"converter\":{\"class\":\"" + converter + "ToLong\",\"onFailure\":\"KEEP\"}},\n" +
+      "    {\"name\": \"d\", \"converter\":{\"class\":\"" + converter + "ToDouble\"}},\n" +
+      "    {\"name\": \"m\", \"converter\":{\"class\":\"" + converter + "ToDecimal\"}},\n" +
+      "    {\"name\": \"b\", \"converter\":{\"class\":\"" + converter + "ToBoolean\",\"onFailure\":\"SKIP_ROW\"}}\n" +
+      "  ]\n" +
+      "}\n";
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(schemaText));
+    List<String> result = new ArrayList<>();
+    result.addAll(transformer.transform("{\"l\":\"-9223372036854775808\",\"d\":\"1.5e3\",\"m\":\"0.10\",\"b\":\"TRUE\"}"));
+    result.addAll(transformer.transform("{\"l\":7,\"d\":2,\"m\":0.5,\"b\":0}"));
+    result.addAll(transformer.transform("{\"l\":\"9223372036854775808\",\"d\":\"1e\",\"m\":\"-.5\",\"b\":null}"));
+    result.addAll(transformer.transform("{\"l\":1,\"b\":\"yes\"}"));
+    assertEquals(Arrays.asList(
+      "{\"l\":-9223372036854775808,\"d\":1500.0,\"m\":0.10,\"b\":true}",
+      "{\"l\":7,\"d\":2.0,\"m\":0.5,\"b\":false}",
+      "{\"l\":\"9223372036854775808\",\"m\":-0.5}"
+    ), result);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToLongFails() throws IOException {
+    String schemaText = "{\"columns\": [{\"name\": \"l\", \"converter\":{\"class\":\"io.github.jsonflat.schema.converter.ToLong\"}}]}";
+    new Transformer(JsonSchemaFactory.builder().build().generate(schemaText)).transform("{\"l\":\"1.0\"}");
+  }
 }
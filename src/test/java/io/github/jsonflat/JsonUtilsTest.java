@@ -43,6 +43,13 @@ public class JsonUtilsTest {
     assertEquals("\"1\";21;\"3 \\\"text\\\" \";\"[0,1,2]\"", value);
   }
 
+  @Test
+  public void csvTypes() throws IOException {
+    JsonNode json = MAPPER.readTree("{\"i\":-21,\"l\":9223372036854775807,\"d\":1.0E-5,\"m\":1e400,\"b\":false,\"n\":null,\"o\":{\"a\":1},\"s\":\" \"}");
+    String value = JsonUtils.writeCsvValue(Arrays.asList("i", "l", "d", "m", "b", "n", "o", "s", "missing"), json, ";");
+    assertEquals("-21;9223372036854775807;1.0E-5;Infinity;\"false\";;\"\";\"\";", value);
+  }
+
   @Test
   public void unnamedArraysFire() throws IOException {
     val js ="{\n" +
@@ -0,0 +1,109 @@
+package io.github.jsonflat;
+
+import io.github.jsonflat.utils.ParallelPipeline;
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class ParallelPipelineTest {
+  List<Integer> items = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+  @Test
+  public void ordered() throws Exception {
+    List<String> result = new ArrayList<>();
+    try (ParallelPipeline<Integer, String> pipeline = new ParallelPipeline<>(4, 8, true, this::slowToString, result::add)) {
+      for (Integer item : items) pipeline.submit(item);
+    }
+    assertEquals(items.stream().map(String::valueOf).collect(Collectors.toList()), result);
+  }
+
+  @Test
+  public void unordered() throws Exception {
+    List<Integer> result = new ArrayList<>();
+    try (ParallelPipeline<Integer, String> pipeline = new ParallelPipeline<>(4, 8, false, this::slowToString, s -> result.add(Integer.valueOf(s)))) {
+      for (Integer item : items) pipeline.submit(item);
+    }
+    Collections.sort(result);
+    assertEquals(items, result);
+  }
+
+  @Test
+  public void workerError() throws Exception {
+    List<String> result = new ArrayList<>();
+    ParallelPipeline<Integer, String> pipeline = new ParallelPipeline<>(4, 8, true,
+      i -> {
+        if (i == 500) throw new IllegalStateException("bad item");
+        return slowToString(i);
+      },
+      result::add);
+    try {
+      for (Integer item : items) pipeline.submit(item);
+      pipeline.close();
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("bad item", e.getMessage());
+    }
+    assertEquals(items.subList(0, 500).stream().map(String::valueOf).collect(Collectors.toList()), result);
+  }
+
+  @Test
+  public void interruptedClose() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ParallelPipeline<Integer, String> pipeline = new ParallelPipeline<>(1, 8, true, i -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return String.valueOf(i);
+    }, s -> { });
+    pipeline.submit(1);
+    Thread.currentThread().interrupt();
+    try {
+      pipeline.close();
+      fail();
+    } catch (InterruptedIOException e) {
+      assertTrue(Thread.interrupted()); //flag is kept
+    } finally {
+      release.countDown();
+    }
+  }
+
+  private String slowToString(Integer i) {
+    if (ThreadLocalRandom.current().nextInt(10) == 0) {
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return String.valueOf(i);
+  }
+}
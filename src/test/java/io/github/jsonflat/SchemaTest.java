@@ -2,11 +2,12 @@ package io.github.jsonflat;
 
 import io.github.jsonflat.schema.AutoSchemaFactory;
 import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.utils.StringUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.*;
 
 /**
  * 
@@ -46,4 +47,127 @@ public class SchemaTest {
       )
     );
   }
+
+  @Test
+  public void mergeTest() throws IOException {
+    AutoSchemaFactory factory = AutoSchemaFactory.builder().build();
+    Schema schema = factory.generate("{\"one\":1,\"two\":{\"a\":1,\"b\":[1,2]}}");
+    Assert.assertEquals(Arrays.asList("one", "two_a", "two_b"), schema.getResultNames());
+
+    schema.merge(factory.generate("{\"three\":3,\"two\":{\"c\":1,\"b\":[{\"x\":1}]}}"));
+    Assert.assertEquals(Arrays.asList("one", "two_a", "two_b_x", "two_c", "three"), schema.getResultNames());
+    Assert.assertEquals(Schema.GroupPolicy.NO_GROUP, schema.getColumn("two").getColumn("b").getGroup());
+    Assert.assertNull(schema.getColumn("four"));
+
+    //columns defined by immutable lists
+    Schema codeSchema = new Schema();
+    codeSchema.setColumns(Arrays.asList(
+      new Schema.Column("one", "one", Collections.emptyList(), codeSchema),
+      new Schema.Column("two", "two", Collections.singletonList(new Schema.Column("a", "a", Collections.emptyList(), codeSchema)), codeSchema)
+    ));
+    codeSchema.merge(schema);
+    Assert.assertEquals(Arrays.asList("one", "two_a", "two_b_x", "two_c", "three"), codeSchema.getResultNames());
+  }
+
+  @Test
+  public void mergeKnownColumns() throws IOException {
+    AutoSchemaFactory factory = AutoSchemaFactory.builder().build();
+    Schema schema = factory.generate("{\"one\":1,\"two\":{\"a\":1,\"b\":[{\"x\":1}]}}");
+    List<String> names = schema.getResultNames();
+    int modCount = schema.getModCount();
+
+    //documents with known columns don't modify schema
+    schema.merge(factory.generate("{\"one\":1,\"two\":{\"a\":1,\"b\":[{\"x\":1}]}}"));
+    schema.merge(factory.generate("{\"two\":{\"b\":[{\"x\":2}]}}"));
+    Assert.assertEquals(modCount, schema.getModCount());
+    Assert.assertEquals(names, schema.getResultNames());
+
+    schema.merge(factory.generate("{\"two\":{\"b\":[{\"y\":2}]}}"));
+    Assert.assertNotEquals(modCount, schema.getModCount());
+    Assert.assertEquals(Arrays.asList("one", "two_a", "two_b_x", "two_b_y"), schema.getResultNames());
+  }
+
+  @Test
+  public void filterColumnsTest() {
+    Random random = new Random(15);
+    String[] names = {"a", "b", "ab", "a_b", "ba", "_", "a__b"};
+    String[] parts = {"a", "b", "_", "*", "?", "ab", "**"};
+    for (int iteration = 0; iteration < 2000; iteration++) {
+      String delimiter = iteration % 5 == 0 ? "__" : "_";
+      boolean fullname = iteration % 7 == 0;
+      long seed = random.nextLong();
+      List<String> fullnames = schema(new Random(seed), names, delimiter, fullname).getResultNames();
+      List<String> filters = new ArrayList<>();
+      for (int i = random.nextInt(4); i >= 0; i--) {
+        StringBuilder filter = new StringBuilder();
+        if (random.nextBoolean()) {
+          String name = fullnames.get(random.nextInt(fullnames.size()));
+          filter.append(name, 0, random.nextInt(name.length() + 1));
+        }
+        for (int j = random.nextInt(3); j > 0; j--) filter.append(parts[random.nextInt(parts.length)]);
+        filters.add(filter.toString());
+      }
+      Schema expected = schema(new Random(seed), names, delimiter, fullname);
+      expected.setColumns(filterColumns(filters, expected.getColumns(), ""));
+      Schema actual = schema(new Random(seed), names, delimiter, fullname).filterColumns(filters);
+      Assert.assertEquals(filters.toString(), toString(expected.getColumns()), toString(actual.getColumns()));
+    }
+
+    Schema schema = schema(new Random(1), names, "_", false);
+    Object[] paths = {"a", new String[]{"b", "a"}};
+    Schema expected = schema(new Random(1), names, "_", false);
+    expected.setColumns(filterColumns(Arrays.asList("a*", "b_a*"), expected.getColumns(), ""));
+    Assert.assertEquals(toString(expected.getColumns()), toString(schema.filterColumns(paths).getColumns()));
+  }
+
+  private static Schema schema(Random random, String[] names, String delimiter, boolean fullname) {
+    Schema schema = new Schema();
+    schema.setDelimiter(delimiter);
+    schema.setColumns(columns(random, names, schema, 3, fullname));
+    return schema;
+  }
+
+  private static List<Schema.Column> columns(Random random, String[] names, Schema schema, int depth, boolean fullname) {
+    List<Schema.Column> columns = new ArrayList<>();
+    for (int i = random.nextInt(4); i >= 0; i--) {
+      String name = names[random.nextInt(names.length)];
+      List<Schema.Column> children = depth > 0 && random.nextBoolean()
+        ? columns(random, names, schema, depth - 1, fullname)
+        : Collections.emptyList();
+      Schema.Column column = new Schema.Column(name, name, children, schema);
+      column.setFullname(fullname && random.nextInt(5) == 0);
+      columns.add(column);
+    }
+    return columns;
+  }
+
+  //filtering of columns one by one by full names
+  private static Collection<Schema.Column> filterColumns(List<String> filters, Collection<Schema.Column> columns, String parent) {
+    Collection<Schema.Column> filtered = new LinkedHashSet<>();
+    for (Schema.Column c : columns) {
+      if (filters.contains(c.getFullname(parent))) {
+        c.setGroup(Schema.GroupPolicy.ARRAY);
+        c.getColumns().clear();
+        filtered.add(c);
+      } else if (matches(filters, c, parent)) {
+        if (!c.getColumns().isEmpty()) c.setColumns(filterColumns(filters, c.getColumns(), c.getFullname(parent)));
+        filtered.add(c);
+      }
+    }
+    return filtered;
+  }
+
+  private static boolean matches(List<String> filters, Schema.Column column, String parent) {
+    String fullname = column.getFullname(parent);
+    if (column.getColumns().isEmpty()) return filters.stream().anyMatch(f -> StringUtils.match(f, fullname));
+    return column.getColumns().stream().anyMatch(c -> matches(filters, c, fullname));
+  }
+
+  private static String toString(Collection<Schema.Column> columns) {
+    StringBuilder s = new StringBuilder("[");
+    for (Schema.Column c : columns) {
+      s.append(c.getName()).append(c.isFullname() ? "!" : "").append(':').append(c.getGroup()).append(toString(c.getColumns()));
+    }
+    return s.append(']').toString();
+  }
 }
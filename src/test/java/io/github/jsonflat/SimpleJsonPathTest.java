@@ -0,0 +1,82 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.jayway.jsonpath.JsonPath;
+import io.github.jsonflat.utils.JsonUtils;
+import io.github.jsonflat.utils.SimpleJsonPath;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.jsonflat.Transformer.MAPPER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class SimpleJsonPathTest {
+  String jsonText = "{\n" +
+    "  \"one\": 1,\n" +
+    "  \"nul\": null,\n" +
+    "  \"text\": \"abc\",\n" +
+    "  \"operation-fail\": false,\n" +
+    "  \"0\": 0.5,\n" +
+    "  \"obj\": {\"a\": {\"b\": [1, null, \"x\"]}, \"c\": null},\n" +
+    "  \"arr\": [\n" +
+    "    {\"a\": 1, \"b\": {\"c\": [10, 11]}},\n" +
+    "    {\"a\": null},\n" +
+    "    [1, 2],\n" +
+    "    3,\n" +
+    "    null,\n" +
+    "    {\"b\": {\"c\": 12}}\n" +
+    "  ],\n" +
+    "  \"empty\": []\n" +
+    "}";
+
+  @Test
+  public void sameAsJsonPath() throws IOException {
+    JsonNode document = MAPPER.readTree(jsonText);
+    List<String> paths = Arrays.asList(
+      "one", "nul", "text", "operation-fail", "0", "absent", "one.absent", "nul.absent",
+      "obj", "obj.a", "obj.a.b", "obj.a.b[*]", "obj.c", "obj.c[*]", "obj[*]", "obj.*", "obj.a.b.absent",
+      "arr", "arr[*]", "arr[*].a", "arr[*].b", "arr[*].b.c", "arr[*].b.c[*]", "arr[*][*]", "arr.a",
+      "empty", "empty[*]", "absent[*]", "one[*]", "text[*]", "$", "$.one", "$.arr[*].a", "*", "$.*"
+    );
+    for (String path : paths) {
+      SimpleJsonPath simplePath = SimpleJsonPath.compile(path);
+      assertNotNull(path, simplePath);
+      ArrayNode expected = JsonPath.compile(path).read(document, JsonUtils.JSON_PATH_CONFIGURATION);
+      List<JsonNode> expectedList = new ArrayList<>();
+      expected.forEach(expectedList::add);
+      assertEquals(path, expectedList, simplePath.read(document));
+    }
+  }
+
+  @Test
+  public void unsupported() {
+    List<String> paths = Arrays.asList(
+      null, "", "$..a", "a..b", "a.", "a[0]", "[3]", "a[1:2]", "a[?(@.b)]", "a['b']", "a.length()",
+      "@.a", "$[*]", "a b", "a[*]b", "a.*b"
+    );
+    for (String path : paths) {
+      assertNull(path, SimpleJsonPath.compile(path));
+    }
+  }
+}
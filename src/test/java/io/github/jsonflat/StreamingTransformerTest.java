@@ -0,0 +1,310 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jsonflat.model.Cell;
+import io.github.jsonflat.model.CompositeValue;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.ExecutionPlan;
+import io.github.jsonflat.schema.JsonSchemaFactory;
+import io.github.jsonflat.schema.NameTable;
+import io.github.jsonflat.schema.Schema;
+import io.github.jsonflat.utils.JsonUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.github.jsonflat.Transformer.MAPPER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class StreamingTransformerTest {
+  List<String> documents = Arrays.asList(
+    "{\"one\":1,\"two\":[{\"twenty1\":21},{\"twenty2\":22},{\"twenty3\":23}],\"three\":3}",
+    "{\"one\":null,\"two\":[{\"twenty1\":null},null,5,[1,2],{\"twenty2\":[1,{\"a\":2}]}],\"three\":{\"x\":1}}",
+    "{\"one\":{\"sub1\":[1,true,{\"foo\":1},[5,[51,52],6],{\"bar\":[3,4]}]},\"two\":[[1],[2,3]],\"three\":[]}",
+    "{\"one\":1,\"one\":{\"twenty1\":2},\"two\":{\"twenty1\":1,\"twenty2\":[]},\"big\":123456789012345678901234567890,\"f\":1.5e3}",
+    "{\"store\":{\"book\":[{\"category\":\"reference\",\"title\":\"A\",\"price\":8.95},{\"title\":\"B\",\"isbn\":\"0-553\",\"price\":8.99}],\"bicycle\":{\"color\":\"red\"}},\"expensive\":10}",
+    "[{\"one\":1},{\"two\":[{\"twenty1\":1}]},2]",
+    "{}",
+    "null",
+    "7"
+  );
+
+  String jsonSchema = "{\n" +
+    "  \"filter\": {\"class\":\"io.github.jsonflat.schema.filter.NotExist\", \"path\":\"three.x\"},\n" +
+    "  \"columns\": [\n" +
+    "    {\"name\": \"one\", \"skipRowIfEmpty\": true},\n" +
+    "    {\"name\": \"two\", \"path\": \"two[*]\", \"group\":\"COLUMNS\", \"columns\": [\n" +
+    "      {\"name\": \"t1\", \"path\": \"twenty1\", \"fullname\": true},\n" +
+    "      {\"name\": \"t2\", \"path\": \"twenty2[*].a\", \"converter\": {\"class\":\"io.github.jsonflat.schema.converter.ToString\"}}\n" +
+    "    ]},\n" +
+    "    {\"name\": \"book\", \"path\": \"store.book[*]\", \"columns\": [{\"name\": \"title\"}, {\"name\": \"isbn\"}]}\n" +
+    "  ]\n" +
+    "}";
+
+  @Test
+  public void sameAsTreeTransformation() throws IOException {
+    for (Schema schema : schemas()) {
+      Transformer transformer = new Transformer(schema);
+      for (String document : documents) {
+        JsonNode json = MAPPER.readTree(document);
+        List<JsonNode> expected = json.isArray() ? transformElements(transformer, json) : transformer.transform(json);
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+          assertEquals(document, expected, transformer.transform(parser));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void writeRows() throws IOException {
+    for (Schema schema : schemas()) {
+      Transformer transformer = new Transformer(schema);
+      for (String document : documents) {
+        StringBuilder expected = new StringBuilder();
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+          transformer.transform(parser).forEach(row -> expected.append(row).append('\n'));
+        }
+        StringWriter result = new StringWriter();
+        try (JsonParser parser = MAPPER.getFactory().createParser(document);
+             JsonRowWriter writer = new JsonRowWriter(MAPPER.getFactory().createGenerator(result), "\n")) {
+          transformer.writeRows(parser, writer);
+        }
+        assertEquals(document, expected.toString(), result.toString());
+      }
+    }
+  }
+
+  private List<Schema> schemas() throws IOException {
+    String sample = String.join(",", documents);
+    return Arrays.asList(
+      AutoSchemaFactory.builder().build().generate(documents.get(0)),
+      AutoSchemaFactory.builder().build().generate(documents.get(1)),
+      AutoSchemaFactory.builder().primitiveArraysGroup(Schema.GroupPolicy.NO_GROUP).build().generate(documents.get(2)),
+      AutoSchemaFactory.builder().complexArraysGroup(Schema.GroupPolicy.COLUMNS).build().generate(documents.get(1)),
+      AutoSchemaFactory.builder().primitiveArraysGroup(Schema.GroupPolicy.CONCAT).build().generate(documents.get(3)),
+      AutoSchemaFactory.builder().columnStringFilters(Arrays.asList("one", "two_twenty1")).filterRowsPath("three").build().generate(documents.get(0)),
+      AutoSchemaFactory.builder().filterRowsPath("$..twenty1").build().generate(documents.get(0)),
+      AutoSchemaFactory.builder().build().generate("[" + sample + "]"),
+      JsonSchemaFactory.builder().build().generate(jsonSchema)
+    );
+  }
+
+  @Test
+  public void skipUnusedFields() throws IOException {
+    String document = documents.get(4);
+    Schema schema = AutoSchemaFactory.builder()
+      .columnStringFilters(Collections.singletonList("store_book_title"))
+      .build()
+      .generate(document);
+    try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+      assertEquals(
+        "{\"store\":{\"book\":[{\"title\":\"A\"},{\"title\":\"B\"}]}}",
+        new StreamingTransformer(schema).read(parser).toString()
+      );
+    }
+  }
+
+  @Test
+  public void transformReader() throws IOException {
+    String input = String.join("\n", documents) + "\n[" + String.join(",", documents) + "]";
+    for (Schema schema : Arrays.asList(
+      AutoSchemaFactory.builder().build().generate(documents.get(1)),
+      JsonSchemaFactory.builder().build().generate(jsonSchema))) {
+      Transformer transformer = new Transformer(schema);
+      List<JsonNode> expected = new ArrayList<>();
+      for (String document : documents) {
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+          expected.addAll(transformer.transform(parser));
+        }
+      }
+      for (String document : documents) { //elements of top-level array, nested arrays are not unwrapped
+        expected.addAll(transformer.transform(MAPPER.readTree(document)));
+      }
+
+      List<JsonNode> rows = new ArrayList<>();
+      transformer.transform(new StringReader(input), rows::add);
+      assertEquals(expected, rows);
+
+      rows.clear();
+      transformer.transform(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), rows::add);
+      assertEquals(expected, rows);
+
+      try (Stream<JsonNode> stream = transformer.transformStream(new StringReader(input))) {
+        assertEquals(expected, stream.collect(Collectors.toList()));
+      }
+      try (Stream<JsonNode> stream = transformer.transformStream(new StringReader(input))) {
+        assertEquals(expected.subList(0, 2), stream.limit(2).collect(Collectors.toList()));
+      }
+    }
+  }
+
+  @Test
+  public void writeCsvRows() throws IOException {
+    for (Schema schema : schemas()) {
+      Transformer transformer = new Transformer(schema);
+      List<String> names = schema.getResultNames();
+      CsvRowWriter writer = new CsvRowWriter(names, ";", "\n");
+      writer.setPrefix("p;");
+      for (String document : documents) {
+        StringBuilder expected = new StringBuilder();
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+          for (JsonNode row : transformer.transform(parser)) {
+            JsonUtils.appendCsvValue(expected.append("p;"), names, row, ";").append('\n');
+          }
+        }
+        writer.getBuffer().setLength(0);
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+          transformer.writeRows(parser, writer);
+        }
+        assertEquals(document, expected.toString(), writer.getBuffer().toString());
+      }
+    }
+  }
+
+  @Test
+  public void internedNames() throws IOException {
+    Schema schema = AutoSchemaFactory.builder().complexArraysGroup(Schema.GroupPolicy.COLUMNS).build().generate(documents.get(0));
+    ExecutionPlan plan = ExecutionPlan.compile(schema);
+    NameTable names = plan.getNames();
+    ExecutionPlan.Column two = plan.getColumns().get(1);
+    int element = two.getIndexedId(two.getResultId(NameTable.NONE), 2);
+    assertEquals("two_2", names.name(element));
+    assertEquals(element, two.getIndexedId(two.getResultId(NameTable.NONE), 2));
+    int child = two.getColumns().get(0).getResultId(element);
+    assertEquals("two_2_twenty1", names.name(child));
+    assertEquals(child, two.getColumns().get(0).getResultId(element));
+
+    schema.setColumns(schema.getColumns()); //recompiled plan keeps ids
+    ExecutionPlan recompiled = ExecutionPlan.compile(schema);
+    assertEquals(names, recompiled.getNames());
+    assertEquals(element, recompiled.getColumns().get(1).getIndexedId(two.getResultId(NameTable.NONE), 2));
+
+    List<String> cellNames = new ArrayList<>();
+    new FlatTransformer(plan).rows(MAPPER.readTree(documents.get(0))).next()
+      .forEach(cell -> collectNames(cell, cellNames, names));
+    assertEquals(Arrays.asList("one", "two_0_twenty1", "two_1_twenty2", "two_2_twenty3", "three"), cellNames);
+  }
+
+  private void collectNames(Cell cell, List<String> result, NameTable names) {
+    if (cell.getValue() instanceof CompositeValue) {
+      ((CompositeValue) cell.getValue()).forEach(c -> collectNames(c, result, names));
+    } else if (!cell.getValue().isEmpty()) {
+      assertTrue(cell.getName() == names.name(cell.getId()));
+      result.add(cell.getName());
+    }
+  }
+
+  @Test
+  public void nestedProductRows() throws IOException {
+    JsonNode document = MAPPER.readTree("{\"id\":1,\"outer\":[" +
+      "{\"x\":[{\"a\":1},{\"a\":2}],\"y\":[{\"b\":1},{\"b\":2},{\"b\":3}]},{\"x\":[{\"a\":3}],\"y\":[]}]}");
+    Schema schema = AutoSchemaFactory.builder().build().generate(document);
+    //combinations of nested arrays are built row by row, kept rows are not changed by later rows
+    List<List<Cell>> rows = new ArrayList<>();
+    Iterator<List<Cell>> iterator = new FlatTransformer(schema.getColumns()).rows(document);
+    while (iterator.hasNext()) rows.add(new ArrayList<>(iterator.next()));
+    assertEquals(Arrays.asList(
+      "{\"id\":1,\"outer_x_a\":1,\"outer_y_b\":1}", "{\"id\":1,\"outer_x_a\":2,\"outer_y_b\":1}",
+      "{\"id\":1,\"outer_x_a\":1,\"outer_y_b\":2}", "{\"id\":1,\"outer_x_a\":2,\"outer_y_b\":2}",
+      "{\"id\":1,\"outer_x_a\":1,\"outer_y_b\":3}", "{\"id\":1,\"outer_x_a\":2,\"outer_y_b\":3}",
+      "{\"id\":1,\"outer_x_a\":3}"
+    ), rows.stream().map(row -> FlatTransformer.toNode(row).toString()).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void parallelArray() throws IOException {
+    List<String> elements = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      elements.add(documents.get(i % documents.size()).replace("\"one\":1", "\"one\":" + i));
+    }
+    String array = "[" + String.join(",", elements) + "]";
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (Schema schema : schemas()) {
+        Transformer transformer = new Transformer(schema);
+        List<String> expected = transformer.transform(array);
+        TransformStats stats = new TransformStats();
+        transformer.setMetrics(stats);
+        transformer.setParallelism(pool, 16);
+        assertEquals(expected, transformer.transform(array));
+        assertEquals(expected.size(), stats.getRows());
+        transformer.setParallelism(pool, 1000); //smaller array is transformed by caller
+        assertEquals(expected, transformer.transform(array));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void writeBinaryRows() throws IOException {
+    String input = String.join("\n", documents);
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(jsonSchema));
+    List<JsonNode> expected = new ArrayList<>();
+    transformer.transform(new StringReader(input), expected::add);
+    byte[] json = write(transformer, input, RowFormat.JSON);
+    for (RowFormat format : Arrays.asList(RowFormat.SMILE, RowFormat.CBOR)) {
+      byte[] binary = write(transformer, input, format);
+      List<JsonNode> rows = new ArrayList<>();
+      try (MappingIterator<JsonNode> iterator = new ObjectMapper(format.getFactory()).readerFor(JsonNode.class).readValues(binary)) {
+        iterator.forEachRemaining(rows::add);
+      }
+      assertEquals(format.name(), expected.toString(), rows.toString());
+      assertTrue(format.name(), binary.length < json.length);
+    }
+  }
+
+  private byte[] write(Transformer transformer, String input, RowFormat format) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    transformer.transform(new StringReader(input), output, format);
+    return output.toByteArray();
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void transformStreamError() throws IOException {
+    Transformer transformer = new Transformer(AutoSchemaFactory.builder().build().generate(documents.get(0)));
+    try (Stream<JsonNode> stream = transformer.transformStream(new StringReader(documents.get(0) + "{broken"))) {
+      stream.count();
+    }
+  }
+
+  private List<JsonNode> transformElements(Transformer transformer, JsonNode array) {
+    List<JsonNode> result = new ArrayList<>();
+    array.forEach(e -> result.addAll(transformer.transform(e)));
+    return result;
+  }
+}
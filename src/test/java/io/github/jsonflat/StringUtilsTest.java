@@ -1,8 +1,17 @@
 package io.github.jsonflat;
 
+import io.github.jsonflat.utils.GlobMatcher;
+import io.github.jsonflat.utils.InputLine;
+import io.github.jsonflat.utils.LogPrefix;
 import io.github.jsonflat.utils.StringUtils;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -75,6 +84,45 @@ public class StringUtilsTest {
     assertFalse(StringUtils.match("????????.????.????.????.????????????", UUID.randomUUID().toString()));
   }
 
+  @Test
+  public void testMatchManyStars() {
+    String text = String.join("", Collections.nCopies(200, "a"));
+    assertFalse(StringUtils.match("*a*a*a*a*a*a*a*a*a*a*b", text));
+    assertTrue(StringUtils.match("*a*a*a*a*a*a*a*a*a*a*", text));
+    assertTrue(StringUtils.match("*b", "*ab"));
+  }
+
+  @Test
+  public void testGlobMatcher() {
+    Random random = new Random(1);
+    for (int i = 0; i < 2000; i++) {
+      List<String> patterns = new ArrayList<>();
+      for (int j = random.nextInt(4); j >= 0; j--) patterns.add(randomString(random, "ab*?_", 6));
+      GlobMatcher matcher = GlobMatcher.compile(patterns);
+      String text = randomString(random, "ab_", 8);
+      assertEquals(patterns + " " + text, patterns.stream().anyMatch(p -> regexMatch(p, text)), matcher.matches(text));
+      assertEquals(patterns.get(0) + " " + text, regexMatch(patterns.get(0), text), StringUtils.match(patterns.get(0), text));
+    }
+    assertFalse(GlobMatcher.compile(Collections.emptyList()).matches("a"));
+    GlobMatcher wide = GlobMatcher.compile(Arrays.asList("user_*_id", "ts", "items*", "*_name*", "a?c"));
+    assertTrue(wide.matches("user_profile_id"));
+    assertTrue(wide.matches("ts"));
+    assertTrue(wide.matches("first_name"));
+    assertTrue(wide.matches("abc"));
+    assertFalse(wide.matches("user_id"));
+    assertFalse(wide.matches("tsx"));
+  }
+
+  private static String randomString(Random random, String chars, int maxLength) {
+    StringBuilder result = new StringBuilder();
+    for (int i = random.nextInt(maxLength + 1); i > 0; i--) result.append(chars.charAt(random.nextInt(chars.length())));
+    return result.toString();
+  }
+
+  private static boolean regexMatch(String pattern, String text) {
+    return text.matches(pattern.replace("*", ".*").replace("?", "."));
+  }
+
   @Test
   public void logPreprocessJson() {
     String log = "{\"a\":\"b\"}";
@@ -105,4 +153,32 @@ public class StringUtilsTest {
     assertEquals("[{\"a\":\"b\"}]", StringUtils.preprocessLog(log));
   }
 
+  @Test
+  public void logJsonOffset() {
+    for (String log : new String[]{"{\"a\":1}", "ts [1] {\"a\":1}", "ts {\"a\":[1]}", "ts [1]", "no json", ""}) {
+      byte[] bytes = ("  " + log + "  ").getBytes(StandardCharsets.UTF_8);
+      int expected = log.length() - StringUtils.preprocessLog(log).length();
+      assertEquals(expected, StringUtils.jsonOffset(log, 0, log.length()));
+      assertEquals(expected + 2, StringUtils.jsonOffset(bytes, 2, bytes.length - 2));
+    }
+  }
+
+  @Test
+  public void logPrefix() {
+    String log = "2019-08-09T03:41:48Z\tINFO  app {\"a\":\"b\"}";
+    for (InputLine line : new InputLine[]{InputLine.of(log), InputLine.of(("x" + log).getBytes(StandardCharsets.UTF_8), 1, log.length())}) {
+      InputLine json = line.skipLogPrefix();
+      assertEquals("{\"a\":\"b\"}", json.toString());
+      LogPrefix prefix = json.getPrefix();
+      assertEquals(3, prefix.size());
+      assertEquals("2019-08-09T03:41:48Z", prefix.get(0));
+      assertEquals("app", prefix.get(2));
+      char[] chars = new char[prefix.length(1)];
+      assertEquals(4, prefix.getChars(1, chars));
+      assertEquals("INFO", new String(chars));
+      assertEquals(0, line.getPrefix().size());
+    }
+    assertEquals(0, InputLine.of("{}").skipLogPrefix().getPrefix().size());
+  }
+
 }
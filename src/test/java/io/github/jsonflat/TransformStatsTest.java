@@ -0,0 +1,164 @@
+package io.github.jsonflat;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import io.github.jsonflat.schema.AutoSchemaFactory;
+import io.github.jsonflat.schema.JsonSchemaFactory;
+import io.github.jsonflat.utils.Histogram;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * @author Evgeniy Chukanov
+ */
+
+public class TransformStatsTest {
+  String jsonSchema = "{\n" +
+    "  \"filter\": {\"class\":\"io.github.jsonflat.schema.filter.NotExist\", \"path\":\"skip\"},\n" +
+    "  \"columns\": [\n" +
+    "    {\"name\": \"id\"},\n" +
+    "    {\"name\": \"items\", \"path\": \"items[*]\", \"group\":\"NO_GROUP\", \"columns\": [{\"name\": \"v\"}]}\n" +
+    "  ]\n" +
+    "}";
+
+  @Test
+  public void counters() throws Exception {
+    TransformStats stats = new TransformStats();
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(jsonSchema));
+    transformer.setMetrics(stats);
+    List<String> rows = new ArrayList<>();
+    transformer.transform(new StringReader(
+      "{\"id\":1,\"items\":[{\"v\":1},{\"v\":2},{\"v\":3}]}\n" +
+      "{\"id\":2,\"skip\":true}\n" +
+      "[{\"id\":3,\"items\":[{\"v\":4}]},{\"id\":4}]\n"), row -> rows.add(row.toString()));
+    assertEquals(5, rows.size());
+    assertEquals(4, stats.getDocuments());
+    assertEquals(1, stats.getFiltered());
+    assertEquals(5, stats.getRows());
+    assertEquals(3, stats.getRowsPerDocument().getMax());
+    assertEquals(0, stats.getParseFailures());
+
+    try {
+      transformer.transform("{\"id\":5,\"items\":[{\"v\":");
+      fail();
+    } catch (JsonParseException e) {
+      assertEquals(1, stats.getParseFailures());
+    }
+    assertTrue(stats.summary().startsWith("Documents: 4 parsed, 1 parse failures, 1 filtered"));
+  }
+
+  @Test
+  public void rowLimits() throws Exception {
+    String input = "{\"id\":1,\"items\":[{\"v\":1},{\"v\":2},{\"v\":3},{\"v\":4},{\"v\":5}]}\n" +
+      "{\"id\":2,\"items\":[{\"v\":6},{\"v\":7},{\"v\":8}]}\n";
+    Transformer transformer = new Transformer(JsonSchemaFactory.builder().build().generate(jsonSchema));
+
+    TransformStats stats = new TransformStats();
+    transformer.setMetrics(stats);
+    transformer.setLimits(RowLimits.builder().maxRows(3).build());
+    assertEquals(Arrays.asList(
+      "{\"id\":1,\"items_v\":1}", "{\"id\":1,\"items_v\":2}", "{\"id\":1,\"items_v\":3}",
+      "{\"id\":2,\"items_v\":6}", "{\"id\":2,\"items_v\":7}", "{\"id\":2,\"items_v\":8}"), transform(transformer, input));
+    assertEquals(1, stats.getLimitExceeded());
+    assertTrue(stats.summary().startsWith("Documents: 2 parsed, 0 parse failures, 0 filtered, 1 over row limits"));
+
+    StringWriter written = new StringWriter();
+    try (JsonParser parser = Transformer.MAPPER.getFactory().createParser(input);
+         JsonRowWriter writer = new JsonRowWriter(Transformer.MAPPER.getFactory().createGenerator(written), "\n")) {
+      transformer.writeRows(parser, writer);
+    }
+    assertEquals("{\"id\":1,\"items_v\":1}\n{\"id\":1,\"items_v\":2}\n{\"id\":1,\"items_v\":3}\n", written.toString());
+    assertEquals(2, stats.getLimitExceeded());
+
+    transformer.setLimits(RowLimits.builder().maxBytes(60).build()); //every row is about 25 bytes
+    assertEquals(Arrays.asList(
+      "{\"id\":1,\"items_v\":1}", "{\"id\":1,\"items_v\":2}",
+      "{\"id\":2,\"items_v\":6}", "{\"id\":2,\"items_v\":7}"), transform(transformer, input));
+    assertEquals(4, stats.getLimitExceeded());
+
+    transformer.setLimits(RowLimits.builder().maxRows(4).policy(RowLimits.Policy.SKIP).build());
+    assertEquals(Arrays.asList(
+      "{\"id\":2,\"items_v\":6}", "{\"id\":2,\"items_v\":7}", "{\"id\":2,\"items_v\":8}"), transform(transformer, input));
+    assertEquals(5, stats.getLimitExceeded());
+
+    List<String> rejected = new ArrayList<>();
+    transformer.setLimits(RowLimits.builder().maxRows(4).policy(RowLimits.Policy.REJECT)
+      .rejected(document -> rejected.add(document.get("id").asText())).build());
+    assertEquals(3, transformer.transform(Transformer.MAPPER.readTree(input.split("\n")[1])).size());
+    assertEquals(0, transformer.transform(Transformer.MAPPER.readTree(input.split("\n")[0])).size());
+    assertEquals(Collections.singletonList("1"), rejected);
+    assertEquals(6, stats.getLimitExceeded());
+  }
+
+  @Test
+  public void nestedRowLimits() throws Exception {
+    //sibling arrays of array element have 150^3 combinations, rows over limits are never built
+    StringBuilder element = new StringBuilder("{");
+    for (String name : new String[]{"x", "y", "z"}) {
+      element.append(element.length() > 1 ? "," : "").append('"').append(name).append("\":[");
+      for (int i = 0; i < 150; i++) element.append(i > 0 ? "," : "").append("{\"").append(name).append("\":").append(i).append('}');
+      element.append(']');
+    }
+    String input = "{\"id\":1,\"outer\":[" + element + "}]}";
+    Transformer transformer = new Transformer(AutoSchemaFactory.builder().build().generate(input));
+    TransformStats stats = new TransformStats();
+    transformer.setMetrics(stats);
+
+    transformer.setLimits(RowLimits.builder().maxRows(10).build());
+    List<String> rows = transform(transformer, input);
+    assertEquals(10, rows.size());
+    assertEquals("{\"id\":1,\"outer_x_x\":9,\"outer_y_y\":0,\"outer_z_z\":0}", rows.get(9));
+    assertEquals(1, stats.getLimitExceeded());
+
+    transformer.setLimits(RowLimits.builder().maxRows(10).policy(RowLimits.Policy.SKIP).build());
+    assertEquals(Collections.emptyList(), transform(transformer, input));
+    transformer.setLimits(RowLimits.builder().maxBytes(1000).policy(RowLimits.Policy.SKIP).build());
+    assertEquals(Collections.emptyList(), transform(transformer, input));
+    assertEquals(3, stats.getLimitExceeded());
+  }
+
+  private List<String> transform(Transformer transformer, String input) throws IOException {
+    List<String> rows = new ArrayList<>();
+    transformer.transform(new StringReader(input), row -> rows.add(row.toString()));
+    return rows;
+  }
+
+  @Test
+  public void histogram() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getPercentile(0.5));
+    for (int i = 1; i <= 1000; i++) histogram.record(i);
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500, histogram.getSum());
+    assertEquals(1000, histogram.getMax());
+    long median = histogram.getPercentile(0.5);
+    assertTrue(median >= 500 && median <= 500 * 1.125);
+    assertEquals(1000, histogram.getPercentile(1));
+    assertEquals(1, histogram.getPercentile(0.001));
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(1));
+  }
+}